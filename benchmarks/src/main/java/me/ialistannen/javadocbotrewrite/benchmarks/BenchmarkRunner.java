@@ -0,0 +1,44 @@
+package me.ialistannen.javadocbotrewrite.benchmarks;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the allocation profiler and writes the results as JSON, so runs on
+ * different commits can be compared.
+ *
+ * <p>All normal JMH command line options are accepted, e.g. a regex selecting benchmarks.
+ * The result file is {@code jmh-results/<timestamp>.json} unless {@code -rff} is given.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+    File resultDirectory = new File("jmh-results");
+    if (!resultDirectory.isDirectory() && !resultDirectory.mkdirs()) {
+      System.err.println("Could not create " + resultDirectory.getAbsolutePath());
+    }
+    String timestamp = LocalDateTime.now()
+        .format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
+
+    Options options = new OptionsBuilder()
+        .parent(commandLineOptions)
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result(commandLineOptions.getResult()
+            .orElse(new File(resultDirectory, timestamp + ".json").getPath()))
+        .build();
+
+    new Runner(options).run();
+  }
+}
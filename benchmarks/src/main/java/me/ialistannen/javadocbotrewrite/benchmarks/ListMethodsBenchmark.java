@@ -0,0 +1,68 @@
+package me.ialistannen.javadocbotrewrite.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import me.ialistannen.javadocbotrewrite.benchmarks.SyntheticCorpus.SyntheticMethod;
+import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandListMethods;
+import me.ialistannen.javadocbotrewrite.util.EmbedPacker;
+import net.dv8tion.jda.core.entities.MessageEmbed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Formatting and packing the output of {@code listMethods}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListMethodsBenchmark {
+
+  /**
+   * The amount of methods, from a small class up to something like {@code Player}.
+   */
+  @Param({"20", "300"})
+  private int methodCount;
+
+  private List<SyntheticMethod> methods;
+  private String formatted;
+
+  @Setup
+  public void setUp() {
+    SyntheticCorpus corpus = SyntheticCorpus.standard();
+
+    methods = new ArrayList<>();
+    for (int i = 0; methods.size() < methodCount; i++) {
+      methods.addAll(corpus.getMethods(i));
+    }
+    methods = new ArrayList<>(methods.subList(0, methodCount));
+    methods.sort(Comparator.comparing(SyntheticMethod::getNameWithParameters).reversed());
+
+    formatted = format();
+  }
+
+  @Benchmark
+  public String format() {
+    return CommandListMethods.formatMethods(
+        methods, SyntheticMethod::getReturnValue, SyntheticMethod::getNameWithParameters
+    );
+  }
+
+  @Benchmark
+  public List<MessageEmbed> pack() {
+    return EmbedPacker.pack("**Methods:**", formatted, "```\n%s\n```");
+  }
+}
@@ -0,0 +1,115 @@
+package me.ialistannen.javadocbotrewrite.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import me.ialistannen.javadocbot.javadoc.model.JavadocMethod;
+import me.ialistannen.javadocbotrewrite.util.cache.LruCache;
+import me.ialistannen.javadocbotrewrite.util.cache.QueryKey;
+import me.ialistannen.javadocbotrewrite.util.cache.QueryKey.QueryType;
+import me.ialistannen.javadocbotrewrite.util.index.SuffixIndex;
+import me.ialistannen.javadocbotrewrite.util.index.TrigramIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class and method lookups of the {@link me.ialistannen.javadocbotrewrite.util.JavadocFetcher}.
+ *
+ * <p>Class lookups run against the same {@link SuffixIndex}, {@link TrigramIndex} and query
+ * cache the fetcher uses. Method lookups run the real fetcher over the {@link StandInSources}:
+ * cold ones clear the method cache first, so JavadocBotBase fetches and matches the class page,
+ * warm ones are answered from the cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+  private static final int QUERY_COUNT = 4096;
+  private static final long SIMILARITY_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(25);
+
+  private SyntheticCorpus corpus;
+  private SuffixIndex<String> classIndex;
+  private TrigramIndex classNameIndex;
+  private LruCache<QueryKey, Object> queryCache;
+
+  private String[] queries;
+  private int cursor;
+  private int methodCursor;
+
+  @Setup
+  public void setUp() {
+    corpus = SyntheticCorpus.standard();
+    List<String> classNames = corpus.getClassNames();
+
+    classIndex = SuffixIndex.build(classNames, name -> name);
+    classNameIndex = TrigramIndex.build(
+        classNames.stream()
+            .map(name -> name.substring(name.lastIndexOf('.') + 1))
+            .collect(Collectors.toList())
+    );
+    queryCache = new LruCache<>(10_000, result -> 1);
+
+    queries = corpus.sampleQueries(QUERY_COUNT, 1).toArray(new String[0]);
+  }
+
+  private int next() {
+    cursor = (cursor + 1) & (QUERY_COUNT - 1);
+    return cursor;
+  }
+
+  @Benchmark
+  public List<String> classSuffixLookup() {
+    return classIndex.getEndingIn(queries[next()]);
+  }
+
+  @Benchmark
+  public List<String> similarClassNames() {
+    return classNameIndex.findSimilar(queries[next()], 5, SIMILARITY_BUDGET_NANOS);
+  }
+
+  @Benchmark
+  public Object memoizedClassLookup() {
+    return queryCache.get(
+        new QueryKey(1, QueryType.CLASSES_ENDING_IN, queries[next()]),
+        key -> classIndex.getEndingIn(key.getQuery())
+    );
+  }
+
+  /**
+   * A method lookup missing the method cache. Clearing the cache is part of the measured time,
+   * but small next to fetching and parsing the class page.
+   */
+  @Benchmark
+  public List<JavadocMethod> methodWithParamsCold(StandInSources sources) {
+    int index = nextMethod(sources);
+    sources.getFetcher().getMethodCache().invalidateAll();
+    return sources.getFetcher().getMethodWithParams(
+        sources.getJavadocClass(index), sources.getMethodSelector(index)
+    );
+  }
+
+  @Benchmark
+  public List<JavadocMethod> methodWithParamsWarm(StandInSources sources) {
+    int index = nextMethod(sources);
+    return sources.getFetcher().getMethodWithParams(
+        sources.getJavadocClass(index), sources.getMethodSelector(index)
+    );
+  }
+
+  private int nextMethod(StandInSources sources) {
+    methodCursor = (methodCursor + 1) % sources.size();
+    return methodCursor;
+  }
+}
@@ -0,0 +1,114 @@
+package me.ialistannen.javadocbotrewrite.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import me.ialistannen.javadocbotrewrite.rendering.JavadocRenderer;
+import me.ialistannen.javadocbotrewrite.util.StringUtil;
+import me.ialistannen.javadocbotrewrite.util.TextFormatter;
+import net.dv8tion.jda.core.EmbedBuilder;
+import net.dv8tion.jda.core.entities.MessageEmbed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Formatting javadoc descriptions and building embeds from them.
+ *
+ * <p>The formatting benchmarks run the formatter of the {@link JavadocRenderer} on synthetic
+ * descriptions. The render benchmarks run the renderer itself on classes and methods of the
+ * {@link StandInSources}: cold ones clear the embed cache first, warm ones are answered from it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderingBenchmark {
+
+  private static final Pattern LEGACY_CODE_BLOCK_PATTERN = Pattern
+      .compile("```(\\n[\\s\\S]+?\\n```)");
+  private static final String HEADER = "```java\npublic class Player extends HumanEntity\n```\n";
+
+  private final TextFormatter formatter = StringUtil.descriptionFormatter(
+      MessageEmbed.TEXT_MAX_LENGTH
+  );
+  private String[] descriptions;
+  private int cursor;
+  private int renderCursor;
+
+  @Setup
+  public void setUp() {
+    descriptions = SyntheticCorpus.standard().getDescriptions().toArray(new String[0]);
+  }
+
+  private int next() {
+    cursor = (cursor + 1) % descriptions.length;
+    return cursor;
+  }
+
+  /**
+   * The regex and copy chain used before the single pass formatter, as a baseline.
+   */
+  @Benchmark
+  public String formatDescriptionLegacy() {
+    String description = descriptions[next()];
+    description = LEGACY_CODE_BLOCK_PATTERN.matcher(description).replaceAll("```java$1");
+    description = HEADER + description;
+    return StringUtil.truncateToSize(MessageEmbed.TEXT_MAX_LENGTH, description);
+  }
+
+  @Benchmark
+  public String formatDescription() {
+    return formatter.format(HEADER, descriptions[next()]);
+  }
+
+  @Benchmark
+  public MessageEmbed buildEmbed() {
+    int index = next();
+    return new EmbedBuilder()
+        .setAuthor(
+            "public class Player" + index,
+            "https://docs.example.com/" + index,
+            "https://docs.example.com/icon.png"
+        )
+        .setDescription(formatter.format(HEADER, descriptions[index]))
+        .build();
+  }
+
+  @Benchmark
+  public MessageEmbed renderClassCold(StandInSources sources) {
+    int index = nextRendered(sources);
+    sources.getRenderer().getEmbedCache().invalidateAll();
+    return sources.getRenderer().renderClass(sources.getJavadocClass(index));
+  }
+
+  @Benchmark
+  public MessageEmbed renderClassWarm(StandInSources sources) {
+    return sources.getRenderer().renderClass(sources.getJavadocClass(nextRendered(sources)));
+  }
+
+  @Benchmark
+  public MessageEmbed renderMethodCold(StandInSources sources) {
+    int index = nextRendered(sources);
+    sources.getRenderer().getEmbedCache().invalidateAll();
+    return sources.getRenderer().renderMethod(sources.getMethod(index));
+  }
+
+  @Benchmark
+  public MessageEmbed renderMethodWarm(StandInSources sources) {
+    return sources.getRenderer().renderMethod(sources.getMethod(nextRendered(sources)));
+  }
+
+  private int nextRendered(StandInSources sources) {
+    renderCursor = (renderCursor + 1) % sources.size();
+    return renderCursor;
+  }
+}
@@ -0,0 +1,58 @@
+package me.ialistannen.javadocbotrewrite.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import me.ialistannen.javadocbotrewrite.benchmarks.SyntheticCorpus.SyntheticMethod;
+import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandListMethods;
+import me.ialistannen.javadocbotrewrite.util.TextSlicer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Slicing large listings into message sized chunks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlicingBenchmark {
+
+  private static final int CHUNK_LENGTH = 2000 - 10;
+
+  private String listing;
+
+  @Setup
+  public void setUp() {
+    SyntheticCorpus corpus = SyntheticCorpus.standard();
+
+    // all methods of the first few hundred classes, about 100 KiB of text
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 300; i++) {
+      List<SyntheticMethod> methods = corpus.getMethods(i);
+      builder.append(CommandListMethods.formatMethods(
+          methods, SyntheticMethod::getReturnValue, SyntheticMethod::getNameWithParameters
+      )).append('\n');
+    }
+    listing = builder.toString();
+  }
+
+  @Benchmark
+  public int[] sliceBoundaries() {
+    return TextSlicer.sliceBoundaries(listing, CHUNK_LENGTH, character -> character == '\n');
+  }
+
+  @Benchmark
+  public List<CharSequence> sliceViews() {
+    return TextSlicer.slice(listing, CHUNK_LENGTH, character -> character == '\n');
+  }
+}
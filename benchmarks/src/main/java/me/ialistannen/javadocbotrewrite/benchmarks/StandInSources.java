@@ -0,0 +1,151 @@
+package me.ialistannen.javadocbotrewrite.benchmarks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
+import me.ialistannen.javadocbot.javadoc.model.JavadocMethod;
+import me.ialistannen.javadocbotrewrite.benchmarks.crawl.GeneratedJavadocTree;
+import me.ialistannen.javadocbotrewrite.benchmarks.crawl.JavadocStandInServer;
+import me.ialistannen.javadocbotrewrite.rendering.JavadocRenderer;
+import me.ialistannen.javadocbotrewrite.util.JavadocFetcher;
+import me.ialistannen.javadocbotrewrite.util.ParallelIndexer;
+import me.ialistannen.javadocbotrewrite.util.index.IndexSnapshotStore;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A real {@link JavadocFetcher} and {@link JavadocRenderer} over the generated spigot tree, served
+ * by a {@link JavadocStandInServer} on localhost.
+ *
+ * <p>The tree is indexed once per trial. Lookups that miss the caches fetch and parse class pages
+ * from the server, just like they would from a javadoc host, minus the network.
+ */
+@State(Scope.Benchmark)
+public class StandInSources {
+
+  private static final int CLASS_COUNT = 256;
+
+  private JavadocStandInServer server;
+  private JavadocFetcher fetcher;
+  private JavadocRenderer renderer;
+
+  private JavadocClass[] classes;
+  private JavadocMethod[] methods;
+  private String[] methodSelectors;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    Map<String, String> sources = new LinkedHashMap<>();
+    sources.put("spigot", "org.bukkit");
+    server = new JavadocStandInServer(
+        new GeneratedJavadocTree(SyntheticCorpus.standard(), sources), 4
+    );
+    server.start();
+
+    // exits the program if the tree can not be indexed
+    fetcher = new JavadocFetcher(
+        Collections.singletonList(server.getBaseUrl("spigot")),
+        new ParallelIndexer(4, Duration.ofMinutes(10)),
+        IndexSnapshotStore.none(),
+        32 * 1024 * 1024,
+        10_000
+    );
+    renderer = new JavadocRenderer(fetcher);
+
+    List<JavadocClass> foundClasses = new ArrayList<>();
+    List<JavadocMethod> foundMethods = new ArrayList<>();
+    List<String> selectors = new ArrayList<>();
+    for (String name : SyntheticCorpus.standard().getClassNames()) {
+      if (foundClasses.size() >= CLASS_COUNT) {
+        break;
+      }
+      if (!name.startsWith("org.bukkit.")) {
+        continue;
+      }
+      List<JavadocClass> found = fetcher.getClassesEndingIn(name);
+      if (found.size() != 1) {
+        continue;
+      }
+      JavadocClass javadocClass = found.get(0);
+      List<JavadocMethod> classMethods = fetcher.getAllMethods(javadocClass);
+      if (classMethods.isEmpty()) {
+        continue;
+      }
+      JavadocMethod method = classMethods.get(foundClasses.size() % classMethods.size());
+      String nameWithParameters = method.getNameWithParameters();
+
+      foundClasses.add(javadocClass);
+      foundMethods.add(method);
+      selectors.add(
+          foundClasses.size() % 2 == 0
+              ? nameWithParameters
+              : nameWithParameters.substring(0, nameWithParameters.indexOf('('))
+      );
+    }
+    if (foundClasses.isEmpty()) {
+      throw new IllegalStateException("No classes with methods found in the generated tree");
+    }
+
+    classes = foundClasses.toArray(new JavadocClass[0]);
+    methods = foundMethods.toArray(new JavadocMethod[0]);
+    methodSelectors = selectors.toArray(new String[0]);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    server.close();
+  }
+
+  /**
+   * @return The fetcher, with the generated spigot tree as its base path
+   */
+  public JavadocFetcher getFetcher() {
+    return fetcher;
+  }
+
+  /**
+   * @return The renderer using the {@link #getFetcher() fetcher}
+   */
+  public JavadocRenderer getRenderer() {
+    return renderer;
+  }
+
+  /**
+   * @return The amount of picked classes, which is also the amount of methods and selectors
+   */
+  public int size() {
+    return classes.length;
+  }
+
+  /**
+   * @param index The index of the class
+   * @return The class
+   */
+  public JavadocClass getJavadocClass(int index) {
+    return classes[index];
+  }
+
+  /**
+   * @param index The index of the class
+   * @return A method of the class
+   */
+  public JavadocMethod getMethod(int index) {
+    return methods[index];
+  }
+
+  /**
+   * @param index The index of the class
+   * @return A selector for a method of the class, with or without parameters
+   */
+  public String getMethodSelector(int index) {
+    return methodSelectors[index];
+  }
+}
@@ -0,0 +1,246 @@
+package me.ialistannen.javadocbotrewrite.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A generated javadoc corpus, so the benchmarks run offline and reproducibly.
+ *
+ * <p>The {@link #standard() standard} corpus is sized like the java, javafx and spigot javadoc
+ * together: about 7500 classes in 390 packages with roughly 90000 methods.
+ */
+public class SyntheticCorpus {
+
+  private static final String[] PREFIXES = {
+      "", "", "", "Abstract", "Default", "Simple", "Base", "Craft", "Concurrent", "Buffered",
+      "Linked", "Sorted", "Immutable", "Observable", "Readonly", "Basic", "Async", "Native"
+  };
+  private static final String[] STEMS = {
+      "Item", "Stream", "Player", "Block", "Entity", "Node", "Map", "List", "Set", "Channel",
+      "Buffer", "Reader", "Writer", "Socket", "Property", "Binding", "World", "Chunk", "Inventory",
+      "Scene", "Stage", "Pane", "Event", "Task", "Service", "Key", "Value", "Handler", "Color",
+      "Image", "Font", "Path", "File", "Thread", "Lock", "Queue", "Table", "Tree", "View", "Cell"
+  };
+  private static final String[] SUFFIXES = {
+      "", "", "", "Factory", "Event", "Listener", "Builder", "Manager", "Impl", "Provider",
+      "Exception", "Helper", "Meta", "Type", "Stack", "Spliterator", "Iterator", "Adapter"
+  };
+  private static final String[] PACKAGE_WORDS = {
+      "util", "io", "nio", "net", "lang", "concurrent", "event", "entity", "block", "inventory",
+      "scene", "control", "layout", "beans", "property", "collections", "text", "time", "security",
+      "command", "plugin", "scheduler", "material", "potion", "configuration", "geometry"
+  };
+  private static final String[] TYPES = {
+      "void", "int", "long", "boolean", "double", "String", "Object", "List<String>",
+      "Optional<Item>", "Map<String,Object>", "ItemStack", "Node", "Player", "Block", "byte[]"
+  };
+  private static final String[] VERBS = {
+      "get", "set", "is", "has", "add", "remove", "create", "update", "find", "to", "apply"
+  };
+
+  private static SyntheticCorpus standard;
+
+  private final List<String> classNames;
+  private final List<List<SyntheticMethod>> methods;
+  private final List<String> descriptions;
+
+  private SyntheticCorpus(List<String> classNames, List<List<SyntheticMethod>> methods,
+      List<String> descriptions) {
+    this.classNames = classNames;
+    this.methods = methods;
+    this.descriptions = descriptions;
+  }
+
+  /**
+   * @return The corpus sized like java + javafx + spigot
+   */
+  public static synchronized SyntheticCorpus standard() {
+    if (standard == null) {
+      standard = new Generator(42)
+          .addSource("java", 220, 4240)
+          .addSource("javafx", 70, 1080)
+          .addSource("org.bukkit", 100, 2200)
+          .build(12, 512);
+    }
+    return standard;
+  }
+
+  /**
+   * @return All fully qualified class names
+   */
+  public List<String> getClassNames() {
+    return classNames;
+  }
+
+  /**
+   * @param classIndex The index of the class in {@link #getClassNames()}
+   * @return The methods of the class
+   */
+  public List<SyntheticMethod> getMethods(int classIndex) {
+    return methods.get(classIndex);
+  }
+
+  /**
+   * @return Descriptions of realistic lengths, some containing code blocks
+   */
+  public List<String> getDescriptions() {
+    return descriptions;
+  }
+
+  /**
+   * Picks queries the way users type them: mostly simple names, some fully qualified, some with
+   * a different case.
+   *
+   * @param amount The amount of queries
+   * @param seed The seed for the random choices
+   * @return The queries
+   */
+  public List<String> sampleQueries(int amount, long seed) {
+    Random random = new Random(seed);
+    List<String> queries = new ArrayList<>(amount);
+    for (int i = 0; i < amount; i++) {
+      // skewed towards the first classes, like real traffic
+      int index = (int) (classNames.size() * Math.pow(random.nextDouble(), 3));
+      String name = classNames.get(index);
+
+      int kind = random.nextInt(10);
+      if (kind < 6) {
+        queries.add(name.substring(name.lastIndexOf('.') + 1));
+      } else if (kind < 8) {
+        queries.add(name);
+      } else {
+        queries.add(name.substring(name.lastIndexOf('.') + 1).toLowerCase());
+      }
+    }
+    return queries;
+  }
+
+  /**
+   * A generated method.
+   */
+  public static class SyntheticMethod {
+
+    private final String returnValue;
+    private final String nameWithParameters;
+
+    private SyntheticMethod(String returnValue, String nameWithParameters) {
+      this.returnValue = returnValue;
+      this.nameWithParameters = nameWithParameters;
+    }
+
+    /**
+     * @return The return value
+     */
+    public String getReturnValue() {
+      return returnValue;
+    }
+
+    /**
+     * @return The name and parameters, e.g. {@code getItem(int, String)}
+     */
+    public String getNameWithParameters() {
+      return nameWithParameters;
+    }
+  }
+
+  private static class Generator {
+
+    private final Random random;
+    private final List<String> classNames = new ArrayList<>();
+
+    private Generator(long seed) {
+      this.random = new Random(seed);
+    }
+
+    private Generator addSource(String root, int packageCount, int classCount) {
+      List<String> packages = new ArrayList<>();
+      Set<String> seenPackages = new LinkedHashSet<>();
+      while (packages.size() < packageCount) {
+        String name = root + "." + pick(PACKAGE_WORDS)
+            + (random.nextBoolean() ? "." + pick(PACKAGE_WORDS) : "");
+        if (seenPackages.add(name)) {
+          packages.add(name);
+        }
+      }
+
+      Set<String> seenClasses = new LinkedHashSet<>();
+      while (seenClasses.size() < classCount) {
+        String simpleName = pick(PREFIXES) + pick(STEMS) + pick(SUFFIXES);
+        seenClasses.add(packages.get(random.nextInt(packages.size())) + "." + simpleName);
+      }
+      classNames.addAll(seenClasses);
+      return this;
+    }
+
+    private SyntheticCorpus build(int averageMethods, int descriptionCount) {
+      Collections.shuffle(classNames, random);
+
+      List<List<SyntheticMethod>> methods = new ArrayList<>(classNames.size());
+      for (int i = 0; i < classNames.size(); i++) {
+        int count = random.nextInt(2 * averageMethods + 1);
+        List<SyntheticMethod> classMethods = new ArrayList<>(count);
+        for (int j = 0; j < count; j++) {
+          classMethods.add(createMethod());
+        }
+        methods.add(classMethods);
+      }
+
+      List<String> descriptions = new ArrayList<>(descriptionCount);
+      for (int i = 0; i < descriptionCount; i++) {
+        descriptions.add(createDescription());
+      }
+
+      return new SyntheticCorpus(
+          Collections.unmodifiableList(new ArrayList<>(classNames)),
+          Collections.unmodifiableList(methods),
+          Collections.unmodifiableList(descriptions)
+      );
+    }
+
+    private SyntheticMethod createMethod() {
+      StringBuilder name = new StringBuilder()
+          .append(pick(VERBS))
+          .append(pick(STEMS))
+          .append('(');
+      int parameters = random.nextInt(4);
+      for (int i = 0; i < parameters; i++) {
+        if (i > 0) {
+          name.append(", ");
+        }
+        name.append(pick(TYPES));
+      }
+      name.append(')');
+
+      return new SyntheticMethod(pick(TYPES), name.toString());
+    }
+
+    private String createDescription() {
+      // most descriptions are short, a few are very long
+      int length = 200 + (int) (6000 * Math.pow(random.nextDouble(), 2));
+      StringBuilder description = new StringBuilder(length + 64);
+
+      while (description.length() < length) {
+        if (random.nextInt(8) == 0) {
+          description.append("```\n")
+              .append(pick(TYPES)).append(" value = ").append(pick(VERBS)).append(pick(STEMS))
+              .append("();\n")
+              .append("value.").append(pick(VERBS)).append("(42);")
+              .append("\n```\n");
+        } else {
+          description.append(random.nextInt(5) == 0 ? "\u00A0" : " ")
+              .append(random.nextInt(6) == 0 ? "**" + pick(STEMS) + "**" : pick(STEMS))
+              .append(random.nextInt(12) == 0 ? ".\n" : "");
+        }
+      }
+      return description.toString();
+    }
+
+    private String pick(String[] values) {
+      return values[random.nextInt(values.length)];
+    }
+  }
+}
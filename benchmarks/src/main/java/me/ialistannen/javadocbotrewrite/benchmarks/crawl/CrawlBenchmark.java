@@ -0,0 +1,200 @@
+package me.ialistannen.javadocbotrewrite.benchmarks.crawl;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import me.ialistannen.javadocbot.javadoc.JavadocManager;
+import me.ialistannen.javadocbotrewrite.benchmarks.SyntheticCorpus;
+import me.ialistannen.javadocbotrewrite.util.JavadocFetcher;
+import me.ialistannen.javadocbotrewrite.util.index.ParallelIndexer;
+import me.ialistannen.javadocbotrewrite.util.index.SourceRefresher;
+
+/**
+ * Measures a full index of javadoc served by a {@link JavadocStandInServer} and the change checks
+ * of the {@link SourceRefresher} following it.
+ *
+ * <p>The first check compares the modification time of the lists with the time they were
+ * indexed, the second one sends conditional requests, which are answered with 304. Then the
+ * server {@link JavadocStandInServer#republish() republishes} the lists and a last check finds
+ * every source changed. Changed sources are re-indexed after their check, like the bot does, and
+ * the re-index is reported as its own row.
+ *
+ * <p>Run it with {@code java -cp target/benchmarks.jar
+ * me.ialistannen.javadocbotrewrite.benchmarks.crawl.CrawlBenchmark [options]}.
+ * <br>Options:
+ * <ul>
+ * <li>{@code --root <directory>}: Serves a recorded tree instead of the generated one</li>
+ * <li>{@code --sources <a,b,...>}: The source directories to index. Defaults to java, javafx
+ * and spigot.</li>
+ * <li>{@code --latency-ms <n>} and {@code --jitter-ms <n>}: Latency per request</li>
+ * <li>{@code --bandwidth-kbps <n>}: Bandwidth per response, 0 for unlimited</li>
+ * <li>{@code --error-rate <0..1>}: The fraction of requests failing with a 503</li>
+ * <li>{@code --threads <n>}: The amount of sources indexed at the same time</li>
+ * <li>{@code --timeout-seconds <n>}: The timeout per source</li>
+ * </ul>
+ */
+public class CrawlBenchmark {
+
+  private static final String ROW_FORMAT = "%-14s %8s %10s %12s %10s %6s %7s %7s %8s%n";
+
+  public static void main(String[] args) throws IOException {
+    Map<String, String> options = parseOptions(args);
+
+    Map<String, String> sources = new LinkedHashMap<>();
+    sources.put("java", "java");
+    sources.put("javafx", "javafx");
+    sources.put("spigot", "org.bukkit");
+
+    List<String> sourceNames = new ArrayList<>(sources.keySet());
+    if (options.containsKey("sources")) {
+      sourceNames.clear();
+      for (String source : options.get("sources").split(",")) {
+        sourceNames.add(source.trim());
+      }
+    }
+
+    JavadocTree tree;
+    if (options.containsKey("root")) {
+      tree = new DirectoryJavadocTree(Paths.get(options.get("root")));
+    } else {
+      GeneratedJavadocTree generatedTree = new GeneratedJavadocTree(
+          SyntheticCorpus.standard(), sources
+      );
+      System.out.printf(
+          "Generated %d pages with %d bytes%n",
+          generatedTree.getPageCount(), generatedTree.getTotalBytes()
+      );
+      tree = generatedTree;
+    }
+
+    int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+    ParallelIndexer indexer = new ParallelIndexer(
+        threads,
+        Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout-seconds", "600")))
+    );
+
+    try (JavadocStandInServer server = new JavadocStandInServer(tree, threads * 4)) {
+      server.setLatency(
+          Long.parseLong(options.getOrDefault("latency-ms", "0")),
+          Long.parseLong(options.getOrDefault("jitter-ms", "0"))
+      );
+      server.setBandwidth(Long.parseLong(options.getOrDefault("bandwidth-kbps", "0")) * 1024);
+      server.setErrorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")));
+      server.start();
+
+      List<String> baseUrls = new ArrayList<>();
+      for (String source : sourceNames) {
+        baseUrls.add(server.getBaseUrl(source));
+      }
+
+      System.out.printf(
+          ROW_FORMAT,
+          "run", "requests", "requests/s", "bytes", "wall (ms)", "304", "errors", "failed",
+          "changed"
+      );
+
+      Map<String, Long> indexedAt = new ConcurrentHashMap<>();
+      server.resetCounters();
+      long start = System.nanoTime();
+      int failed = index(indexer, baseUrls, indexedAt);
+      printRow("index", server, start, String.valueOf(failed), "-");
+
+      List<String> changed = new ArrayList<>();
+      SourceRefresher refresher = new SourceRefresher(() -> baseUrls, changed::add, indexedAt::get);
+
+      check("first check", refresher, changed, server, indexer, indexedAt);
+      check("check", refresher, changed, server, indexer, indexedAt);
+      server.republish();
+      check("changed check", refresher, changed, server, indexer, indexedAt);
+    }
+  }
+
+  /**
+   * Checks all sources for changes and re-indexes the changed ones, printing a row for each.
+   *
+   * @param name The name of the check row
+   * @param refresher The {@link SourceRefresher} checking the sources
+   * @param changed The list the refresher adds the changed base urls to
+   * @param server The {@link JavadocStandInServer} serving the sources
+   * @param indexer The {@link ParallelIndexer} to re-index with
+   * @param indexedAt The time in epoch milliseconds each source was last indexed at
+   */
+  private static void check(String name, SourceRefresher refresher, List<String> changed,
+      JavadocStandInServer server, ParallelIndexer indexer, Map<String, Long> indexedAt) {
+    changed.clear();
+    server.resetCounters();
+    long start = System.nanoTime();
+    refresher.checkAll();
+    printRow(name, server, start, "-", String.valueOf(changed.size()));
+
+    if (changed.isEmpty()) {
+      return;
+    }
+    server.resetCounters();
+    start = System.nanoTime();
+    int failed = index(indexer, new ArrayList<>(changed), indexedAt);
+    printRow("re-index", server, start, String.valueOf(failed), "-");
+  }
+
+  /**
+   * Indexes the given sources and records when the successful ones were indexed.
+   *
+   * @param indexer The {@link ParallelIndexer} to use
+   * @param baseUrls The base urls of the sources
+   * @param indexedAt The time in epoch milliseconds each source was last indexed at
+   * @return The amount of failed sources
+   */
+  private static int index(ParallelIndexer indexer, List<String> baseUrls,
+      Map<String, Long> indexedAt) {
+    List<JavadocManager> managers = new ArrayList<>();
+    for (String baseUrl : baseUrls) {
+      managers.add(JavadocFetcher.createJavadocManager(baseUrl));
+    }
+
+    long startedAt = System.currentTimeMillis();
+    Map<String, Throwable> failures = indexer.indexAll(managers);
+    for (String baseUrl : baseUrls) {
+      if (!failures.containsKey(baseUrl)) {
+        indexedAt.put(baseUrl, startedAt);
+      }
+    }
+
+    failures.forEach((url, error) -> System.out.println("  " + url + ": " + error));
+    return failures.size();
+  }
+
+  private static void printRow(String name, JavadocStandInServer server, long startNanos,
+      String failed, String changed) {
+    long wallNanos = System.nanoTime() - startNanos;
+    double seconds = wallNanos / 1e9;
+
+    System.out.printf(
+        ROW_FORMAT,
+        name,
+        server.getRequests(),
+        String.format("%.1f", server.getRequests() / Math.max(seconds, 1e-9)),
+        server.getBytesSent(),
+        wallNanos / 1_000_000,
+        server.getNotModified(),
+        server.getErrors(),
+        failed,
+        changed
+    );
+  }
+
+  private static Map<String, String> parseOptions(String[] args) {
+    Map<String, String> options = new LinkedHashMap<>();
+    for (int i = 0; i < args.length; i++) {
+      if (!args[i].startsWith("--") || i + 1 >= args.length) {
+        throw new IllegalArgumentException("Expected '--<option> <value>' at '" + args[i] + "'");
+      }
+      options.put(args[i].substring(2), args[++i]);
+    }
+    return options;
+  }
+}
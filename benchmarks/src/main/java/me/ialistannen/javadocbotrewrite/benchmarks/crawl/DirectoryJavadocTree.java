@@ -0,0 +1,35 @@
+package me.ialistannen.javadocbotrewrite.benchmarks.crawl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Serves a javadoc tree recorded on disk, e.g. an unpacked javadoc jar or a mirror.
+ */
+public class DirectoryJavadocTree implements JavadocTree {
+
+  private final Path root;
+
+  /**
+   * @param root The root directory of the tree
+   */
+  public DirectoryJavadocTree(Path root) {
+    this.root = root.toAbsolutePath().normalize();
+  }
+
+  @Override
+  public Optional<byte[]> read(String path) {
+    Path file = root.resolve(path).normalize();
+    if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(Files.readAllBytes(file));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
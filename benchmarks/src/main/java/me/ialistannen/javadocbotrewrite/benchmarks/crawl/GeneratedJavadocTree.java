@@ -0,0 +1,250 @@
+package me.ialistannen.javadocbotrewrite.benchmarks.crawl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import me.ialistannen.javadocbotrewrite.benchmarks.SyntheticCorpus;
+import me.ialistannen.javadocbotrewrite.benchmarks.SyntheticCorpus.SyntheticMethod;
+
+/**
+ * A javadoc tree in the layout and markup of javadoc 8, generated from a {@link SyntheticCorpus}.
+ *
+ * <p>Every source of the corpus is a subdirectory named after it. It contains a
+ * {@code package-list}, {@code allclasses-noframe.html}, a {@code package-summary.html} per
+ * package and a page per class.
+ */
+public class GeneratedJavadocTree implements JavadocTree {
+
+  private final Map<String, byte[]> pages = new HashMap<>();
+  private long totalBytes;
+
+  /**
+   * @param corpus The corpus to generate the pages for
+   * @param sources Maps the directory of a source to its root package, e.g. "spigot" to
+   * "org.bukkit"
+   */
+  public GeneratedJavadocTree(SyntheticCorpus corpus, Map<String, String> sources) {
+    for (Map.Entry<String, String> source : sources.entrySet()) {
+      generateSource(corpus, source.getKey(), source.getValue());
+    }
+  }
+
+  @Override
+  public Optional<byte[]> read(String path) {
+    return Optional.ofNullable(pages.get(path));
+  }
+
+  /**
+   * @return The amount of pages
+   */
+  public int getPageCount() {
+    return pages.size();
+  }
+
+  /**
+   * @return The size of all pages in bytes
+   */
+  public long getTotalBytes() {
+    return totalBytes;
+  }
+
+  private void generateSource(SyntheticCorpus corpus, String directory, String rootPackage) {
+    Map<String, List<Integer>> classesByPackage = new TreeMap<>();
+    List<String> classNames = corpus.getClassNames();
+    for (int i = 0; i < classNames.size(); i++) {
+      String name = classNames.get(i);
+      if (name.startsWith(rootPackage + ".")) {
+        String packageName = name.substring(0, name.lastIndexOf('.'));
+        classesByPackage.computeIfAbsent(packageName, key -> new ArrayList<>()).add(i);
+      }
+    }
+
+    StringBuilder packageList = new StringBuilder();
+    StringBuilder allClasses = new StringBuilder(header("All Classes", ""))
+        .append("<h1 class=\"bar\">All&nbsp;Classes</h1>\n")
+        .append("<div class=\"indexContainer\">\n<ul>\n");
+
+    for (Map.Entry<String, List<Integer>> entry : classesByPackage.entrySet()) {
+      String packageName = entry.getKey();
+      String packagePath = packageName.replace('.', '/');
+      packageList.append(packageName).append('\n');
+
+      put(directory + "/" + packagePath + "/package-summary.html",
+          packageSummary(corpus, packageName, entry.getValue()));
+
+      for (int classIndex : entry.getValue()) {
+        String simpleName = simpleName(classNames.get(classIndex));
+        allClasses.append("<li><a href=\"").append(packagePath).append('/').append(simpleName)
+            .append(".html\" title=\"class in ").append(packageName).append("\">")
+            .append(simpleName).append("</a></li>\n");
+
+        put(directory + "/" + packagePath + "/" + simpleName + ".html",
+            classPage(corpus, classIndex, packageName));
+      }
+    }
+    allClasses.append("</ul>\n</div>\n</body>\n</html>\n");
+
+    put(directory + "/package-list", packageList.toString());
+    put(directory + "/allclasses-noframe.html", allClasses.toString());
+  }
+
+  private String packageSummary(SyntheticCorpus corpus, String packageName,
+      List<Integer> classIndices) {
+    String relativeRoot = relativeRoot(packageName);
+    StringBuilder page = new StringBuilder(header(packageName, relativeRoot))
+        .append("<div class=\"header\">\n")
+        .append("<h1 title=\"Package\" class=\"title\">Package&nbsp;").append(packageName)
+        .append("</h1>\n")
+        .append("<div class=\"docSummary\">\n<div class=\"block\">")
+        .append(firstSentence(description(corpus, packageName.hashCode())))
+        .append("</div>\n</div>\n</div>\n")
+        .append("<div class=\"contentContainer\">\n<ul class=\"blockList\">\n")
+        .append("<li class=\"blockList\">\n")
+        .append("<table class=\"typeSummary\" summary=\"Class Summary table\">\n")
+        .append("<caption><span>Class Summary</span></caption>\n");
+
+    for (int classIndex : classIndices) {
+      String simpleName = simpleName(corpus.getClassNames().get(classIndex));
+      page.append("<tr>\n<td class=\"colFirst\"><a href=\"").append(simpleName)
+          .append(".html\" title=\"class in ").append(packageName).append("\">")
+          .append(simpleName).append("</a></td>\n")
+          .append("<td class=\"colLast\">\n<div class=\"block\">")
+          .append(firstSentence(description(corpus, classIndex)))
+          .append("</div>\n</td>\n</tr>\n");
+    }
+
+    page.append("</table>\n</li>\n</ul>\n")
+        .append("<a name=\"package.description\">\n<!--   -->\n</a>\n")
+        .append("<div class=\"block\">").append(description(corpus, packageName.hashCode()))
+        .append("</div>\n</div>\n</body>\n</html>\n");
+    return page.toString();
+  }
+
+  private String classPage(SyntheticCorpus corpus, int classIndex, String packageName) {
+    String simpleName = simpleName(corpus.getClassNames().get(classIndex));
+    String relativeRoot = relativeRoot(packageName);
+    String selfLink = relativeRoot + packageName.replace('.', '/') + "/" + simpleName + ".html";
+    List<SyntheticMethod> methods = corpus.getMethods(classIndex);
+
+    StringBuilder page = new StringBuilder(header(simpleName, relativeRoot))
+        .append("<div class=\"header\">\n")
+        .append("<div class=\"subTitle\">").append(packageName).append("</div>\n")
+        .append("<h2 title=\"Class ").append(simpleName).append("\" class=\"title\">Class ")
+        .append(simpleName).append("</h2>\n</div>\n")
+        .append("<div class=\"contentContainer\">\n<div class=\"description\">\n")
+        .append("<ul class=\"blockList\">\n<li class=\"blockList\">\n<hr>\n<br>\n")
+        .append("<pre>public class <span class=\"typeNameLabel\">").append(simpleName)
+        .append("</span>\nextends java.lang.Object</pre>\n")
+        .append("<div class=\"block\">").append(description(corpus, classIndex))
+        .append("</div>\n</li>\n</ul>\n</div>\n")
+        .append("<div class=\"summary\">\n<ul class=\"blockList\">\n<li class=\"blockList\">\n")
+        .append("<a name=\"method.summary\">\n<!--   -->\n</a>\n")
+        .append("<h3>Method Summary</h3>\n")
+        .append("<table class=\"memberSummary\" summary=\"Method Summary table\">\n");
+
+    for (SyntheticMethod method : methods) {
+      String name = methodName(method);
+      page.append("<tr>\n<td class=\"colFirst\"><code>").append(escape(method.getReturnValue()))
+          .append("</code></td>\n<td class=\"colLast\"><code><span class=\"memberNameLink\">")
+          .append("<a href=\"").append(selfLink).append('#').append(anchor(method)).append("\">")
+          .append(name).append("</a></span>")
+          .append(escape(method.getNameWithParameters().substring(name.length())))
+          .append("</code>\n<div class=\"block\">Does something with ").append(name)
+          .append(".</div>\n</td>\n</tr>\n");
+    }
+
+    page.append("</table>\n</li>\n</ul>\n</div>\n")
+        .append("<div class=\"details\">\n<ul class=\"blockList\">\n<li class=\"blockList\">\n")
+        .append("<a name=\"method.detail\">\n<!--   -->\n</a>\n<h3>Method Detail</h3>\n");
+
+    for (SyntheticMethod method : methods) {
+      String name = methodName(method);
+      page.append("<a name=\"").append(anchor(method)).append("\">\n<!--   -->\n</a>\n")
+          .append("<ul class=\"blockList\">\n<li class=\"blockList\">\n<h4>").append(name)
+          .append("</h4>\n<pre>public&nbsp;").append(escape(method.getReturnValue()))
+          .append("&nbsp;").append(escape(method.getNameWithParameters())).append("</pre>\n")
+          .append("<div class=\"block\">Does something with ").append(name).append(".</div>\n")
+          .append("</li>\n</ul>\n");
+    }
+
+    page.append("</li>\n</ul>\n</div>\n</div>\n</body>\n</html>\n");
+    return page.toString();
+  }
+
+  private void put(String path, String content) {
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    pages.put(path, bytes);
+    totalBytes += bytes.length;
+  }
+
+  private static String header(String title, String relativeRoot) {
+    return "<!DOCTYPE HTML PUBLIC \"-//W3C//DTD HTML 4.01 Transitional//EN\" "
+        + "\"http://www.w3.org/TR/html4/loose.dtd\">\n"
+        + "<html lang=\"en\">\n<head>\n"
+        + "<title>" + title + "</title>\n"
+        + "<link rel=\"stylesheet\" type=\"text/css\" href=\"" + relativeRoot
+        + "stylesheet.css\" title=\"Style\">\n"
+        + "</head>\n<body>\n";
+  }
+
+  private static String description(SyntheticCorpus corpus, int index) {
+    List<String> descriptions = corpus.getDescriptions();
+    String description = descriptions.get(Math.floorMod(index, descriptions.size()));
+    return escape(description)
+        .replace("```java\n", "<pre>")
+        .replace("```\n", "<pre>")
+        .replace("\n```", "</pre>");
+  }
+
+  private static String firstSentence(String description) {
+    int end = description.indexOf('.');
+    return end < 0 ? description : description.substring(0, end + 1);
+  }
+
+  private static String relativeRoot(String packageName) {
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i <= packageName.length(); i++) {
+      if (i == packageName.length() || packageName.charAt(i) == '.') {
+        result.append("../");
+      }
+    }
+    return result.toString();
+  }
+
+  private static String simpleName(String className) {
+    return className.substring(className.lastIndexOf('.') + 1);
+  }
+
+  private static String methodName(SyntheticMethod method) {
+    String nameWithParameters = method.getNameWithParameters();
+    return nameWithParameters.substring(0, nameWithParameters.indexOf('('));
+  }
+
+  /**
+   * Javadoc 8 anchors look like {@code add-int-java.lang.Object-}.
+   */
+  private static String anchor(SyntheticMethod method) {
+    String nameWithParameters = method.getNameWithParameters();
+    String parameters = nameWithParameters.substring(
+        nameWithParameters.indexOf('(') + 1, nameWithParameters.length() - 1
+    );
+    StringBuilder anchor = new StringBuilder(methodName(method)).append('-');
+    for (String parameter : parameters.split(", ")) {
+      if (parameter.isEmpty()) {
+        continue;
+      }
+      int genericStart = parameter.indexOf('<');
+      anchor.append(genericStart < 0 ? parameter : parameter.substring(0, genericStart))
+          .append('-');
+    }
+    return anchor.toString().replace("[]", ":A");
+  }
+
+  private static String escape(String text) {
+    return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+  }
+}
@@ -0,0 +1,266 @@
+package me.ialistannen.javadocbotrewrite.benchmarks.crawl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local HTTP server serving a {@link JavadocTree}, so indexing can be measured without the
+ * internet.
+ *
+ * <p>Latency, bandwidth and failures can be injected to get closer to a real javadoc host.
+ * Pages carry an ETag and conditional requests are answered with 304. The start of the server is
+ * sent as the modification time of every page, until {@link #republish()} simulates a new
+ * version of the lists.
+ */
+public class JavadocStandInServer implements AutoCloseable {
+
+  private static final int CHUNK_SIZE = 8 * 1024;
+  private static final List<String> LISTS = Arrays.asList(
+      "package-list", "allclasses-noframe.html"
+  );
+
+  private final JavadocTree tree;
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private volatile long latencyMillis;
+  private volatile long jitterMillis;
+  private volatile long bytesPerSecond;
+  private volatile double errorRate;
+  private volatile String lastModified;
+  private volatile String listsLastModified;
+  private volatile int listRevision;
+
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+  private final AtomicLong notModified = new AtomicLong();
+  private final AtomicLong bytesSent = new AtomicLong();
+
+  /**
+   * Binds the server to a free port on the loopback interface. It is not started yet.
+   *
+   * @param tree The {@link JavadocTree} to serve
+   * @param threads The amount of requests to handle at the same time
+   * @throws IOException if the server could not be bound
+   */
+  public JavadocStandInServer(JavadocTree tree, int threads) throws IOException {
+    this.tree = tree;
+    this.server = HttpServer.create(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0
+    );
+
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+      Thread thread = new Thread(runnable, "StandIn-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+  }
+
+  /**
+   * Starts serving requests.
+   */
+  public void start() {
+    lastModified = formatNow();
+    listsLastModified = lastModified;
+    server.start();
+  }
+
+  /**
+   * Simulates a new version of the javadoc being published. The lists of every source get a new
+   * modification time and ETag, and {@code allclasses-noframe.html} a different body, so the next
+   * change check sees them changed. The classes and packages stay the same.
+   */
+  public synchronized void republish() {
+    listsLastModified = formatNow();
+    listRevision++;
+  }
+
+  /**
+   * @param root The directory of the source, e.g. "java"
+   * @return The base url a {@code JavadocManager} can index the source from
+   */
+  public String getBaseUrl(String root) {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+        + "/" + root + "/";
+  }
+
+  /**
+   * @param latencyMillis The time to wait before answering a request
+   * @param jitterMillis The maximum random time added to the latency
+   */
+  public void setLatency(long latencyMillis, long jitterMillis) {
+    this.latencyMillis = latencyMillis;
+    this.jitterMillis = jitterMillis;
+  }
+
+  /**
+   * @param bytesPerSecond The bandwidth of a single response. 0 for unlimited.
+   */
+  public void setBandwidth(long bytesPerSecond) {
+    this.bytesPerSecond = bytesPerSecond;
+  }
+
+  /**
+   * @param errorRate The fraction of requests to answer with a 503, between 0 and 1
+   */
+  public void setErrorRate(double errorRate) {
+    this.errorRate = errorRate;
+  }
+
+  /**
+   * @return The amount of requests received since the last {@link #resetCounters()}
+   */
+  public long getRequests() {
+    return requests.get();
+  }
+
+  /**
+   * @return The amount of injected errors since the last {@link #resetCounters()}
+   */
+  public long getErrors() {
+    return errors.get();
+  }
+
+  /**
+   * @return The amount of 304 answers since the last {@link #resetCounters()}
+   */
+  public long getNotModified() {
+    return notModified.get();
+  }
+
+  /**
+   * @return The amount of body bytes sent since the last {@link #resetCounters()}
+   */
+  public long getBytesSent() {
+    return bytesSent.get();
+  }
+
+  /**
+   * Resets all counters to zero.
+   */
+  public void resetCounters() {
+    requests.set(0);
+    errors.set(0);
+    notModified.set(0);
+    bytesSent.set(0);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      requests.incrementAndGet();
+      sleep(latencyMillis + (jitterMillis > 0
+          ? ThreadLocalRandom.current().nextLong(jitterMillis + 1)
+          : 0));
+
+      if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+        errors.incrementAndGet();
+        exchange.sendResponseHeaders(503, -1);
+        return;
+      }
+
+      String path = exchange.getRequestURI().getPath();
+      Optional<byte[]> page = tree.read(path.startsWith("/") ? path.substring(1) : path);
+      if (!page.isPresent()) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+
+      byte[] body = page.get();
+      boolean isList = LISTS.stream().anyMatch(path::endsWith);
+      int revision = listRevision;
+      if (isList && revision > 0 && path.endsWith(".html")) {
+        body = withRevision(body, revision);
+      }
+
+      String etag = "\"" + Integer.toHexString(Arrays.hashCode(body))
+          + (isList ? "-" + revision : "") + "\"";
+      exchange.getResponseHeaders().set("ETag", etag);
+      exchange.getResponseHeaders().set(
+          "Last-Modified", isList ? listsLastModified : lastModified
+      );
+      if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        notModified.incrementAndGet();
+        exchange.sendResponseHeaders(304, -1);
+        return;
+      }
+
+      exchange.getResponseHeaders().set("Content-Type", contentType(path));
+      exchange.sendResponseHeaders(200, body.length);
+      writeThrottled(exchange.getResponseBody(), body);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void writeThrottled(OutputStream outputStream, byte[] body) throws IOException {
+    long bandwidth = bytesPerSecond;
+    if (bandwidth <= 0) {
+      outputStream.write(body);
+      bytesSent.addAndGet(body.length);
+      return;
+    }
+
+    long start = System.nanoTime();
+    for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+      int length = Math.min(CHUNK_SIZE, body.length - offset);
+      outputStream.write(body, offset, length);
+      bytesSent.addAndGet(length);
+
+      long dueNanos = start + TimeUnit.SECONDS.toNanos(offset + length) / bandwidth;
+      sleep(TimeUnit.NANOSECONDS.toMillis(dueNanos - System.nanoTime()));
+    }
+  }
+
+  private static byte[] withRevision(byte[] body, int revision) {
+    byte[] comment = ("<!-- revision " + revision + " -->\n").getBytes(StandardCharsets.UTF_8);
+    byte[] result = Arrays.copyOf(body, body.length + comment.length);
+    System.arraycopy(comment, 0, result, body.length, comment.length);
+    return result;
+  }
+
+  private static String formatNow() {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.now().atOffset(ZoneOffset.UTC));
+  }
+
+  private static String contentType(String path) {
+    return path.endsWith(".html") ? "text/html; charset=utf-8" : "text/plain; charset=utf-8";
+  }
+
+  private static void sleep(long millis) {
+    if (millis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package me.ialistannen.javadocbotrewrite.benchmarks.crawl;
+
+import java.util.Optional;
+
+/**
+ * A javadoc tree the {@link JavadocStandInServer} serves pages from.
+ */
+public interface JavadocTree {
+
+  /**
+   * @param path The path of the page relative to the root of the tree, without a leading slash
+   * @return The content of the page, if it exists
+   */
+  Optional<byte[]> read(String path);
+}
@@ -0,0 +1,141 @@
+package me.ialistannen.javadocbotrewrite.benchmarks.replay;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageChannel;
+import net.dv8tion.jda.core.requests.RestAction;
+
+/**
+ * A {@link MessageChannel} that talks to nobody.
+ *
+ * <p>Every request succeeds immediately. The channel remembers when the first message was handed
+ * to the {@link RestAction}, which is the moment the answer would leave the bot.
+ */
+class HeadlessChannel {
+
+  private static final AtomicLong ID_COUNTER = new AtomicLong(1);
+
+  private final String id = Long.toString(ID_COUNTER.getAndIncrement());
+  private final MessageChannel channel;
+  private final AtomicInteger createdSends = new AtomicInteger();
+  private final CompletableFuture<Long> firstSend = new CompletableFuture<>();
+
+  HeadlessChannel() {
+    this.channel = proxy(MessageChannel.class, this::handleChannelCall);
+  }
+
+  /**
+   * @return The channel to pass to the commands
+   */
+  MessageChannel getChannel() {
+    return channel;
+  }
+
+  /**
+   * @return A message in this channel, to pass as the trigger of a command
+   */
+  Message createMessage() {
+    String messageId = Long.toString(ID_COUNTER.getAndIncrement());
+    return proxy(Message.class, (proxy, method, args) -> {
+      switch (method.getName()) {
+        case "getId":
+          return messageId;
+        case "getChannel":
+          return channel;
+        case "getRawContent":
+        case "getContent":
+        case "getStrippedContent":
+          return "";
+        default:
+          return defaultAnswer(proxy, method, args);
+      }
+    });
+  }
+
+  /**
+   * @return True if a command created a message in this channel
+   */
+  boolean hasSends() {
+    return createdSends.get() > 0;
+  }
+
+  /**
+   * @return A future completed with the {@link System#nanoTime()} the first message was sent at
+   */
+  CompletableFuture<Long> getFirstSend() {
+    return firstSend;
+  }
+
+  private Object handleChannelCall(Object proxy, Method method, Object[] args) {
+    switch (method.getName()) {
+      case "getId":
+        return id;
+      case "getName":
+        return "replay-" + id;
+      default:
+        if (method.getName().startsWith("sendMessage")) {
+          createdSends.incrementAndGet();
+          return new RecordingRestAction<>(createMessage(), firstSend);
+        }
+        return defaultAnswer(proxy, method, args);
+    }
+  }
+
+  private static Object defaultAnswer(Object proxy, Method method, Object[] args) {
+    Class<?> type = method.getReturnType();
+    switch (method.getName()) {
+      case "equals":
+        return proxy == args[0];
+      case "hashCode":
+        return System.identityHashCode(proxy);
+      case "toString":
+        return "Headless" + method.getDeclaringClass().getSimpleName();
+      default:
+        break;
+    }
+    if (RestAction.class.isAssignableFrom(type)) {
+      return new RestAction.EmptyRestAction<>(null);
+    }
+    if (type == boolean.class) {
+      return false;
+    }
+    if (type == long.class) {
+      return 0L;
+    }
+    if (type == int.class) {
+      return 0;
+    }
+    return null;
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, handler));
+  }
+
+  /**
+   * A {@link RestAction} that succeeds with a fixed value and records when it was first queued.
+   *
+   * @param <T> The type of the value
+   */
+  private static class RecordingRestAction<T> extends RestAction.EmptyRestAction<T> {
+
+    private final CompletableFuture<Long> queuedAt;
+
+    RecordingRestAction(T value, CompletableFuture<Long> queuedAt) {
+      super(value);
+      this.queuedAt = queuedAt;
+    }
+
+    @Override
+    public void queue(Consumer<T> success, Consumer<Throwable> failure) {
+      queuedAt.complete(System.nanoTime());
+      super.queue(success, failure);
+    }
+  }
+}
@@ -0,0 +1,273 @@
+package me.ialistannen.javadocbotrewrite.benchmarks.replay;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.ialistannen.javadocbotrewrite.benchmarks.SyntheticCorpus;
+import me.ialistannen.javadocbotrewrite.benchmarks.crawl.DirectoryJavadocTree;
+import me.ialistannen.javadocbotrewrite.benchmarks.crawl.GeneratedJavadocTree;
+import me.ialistannen.javadocbotrewrite.benchmarks.crawl.JavadocStandInServer;
+import me.ialistannen.javadocbotrewrite.benchmarks.crawl.JavadocTree;
+import me.ialistannen.javadocbotrewrite.prefetch.HotSetTracker;
+import me.ialistannen.javadocbotrewrite.rendering.JavadocRenderer;
+import me.ialistannen.javadocbotrewrite.simplecommands.Command;
+import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandJavadoc;
+import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandListMethods;
+import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandListPackages;
+import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandPackage;
+import me.ialistannen.javadocbotrewrite.simplecommands.querylog.QueryRecord;
+import me.ialistannen.javadocbotrewrite.util.DaemonThreadFactory;
+import me.ialistannen.javadocbotrewrite.util.JavadocFetcher;
+import me.ialistannen.javadocbotrewrite.util.index.IndexSnapshotStore;
+import me.ialistannen.javadocbotrewrite.util.index.ParallelIndexer;
+
+/**
+ * Replays a query log through the real commands against headless channels.
+ *
+ * <p>Run it with {@code java -cp target/benchmarks.jar
+ * me.ialistannen.javadocbotrewrite.benchmarks.replay.QueryReplay --log <file> [options]}.
+ * <br>Options:
+ * <ul>
+ * <li>{@code --speedup <x>}: Replays x times faster than recorded. 0 sends everything at
+ * once.</li>
+ * <li>{@code --threads <n>}: The amount of commands running at the same time</li>
+ * <li>{@code --root <directory>}: Serves a recorded javadoc tree instead of the generated
+ * one. Logs of the real bot need a mirror of the javadoc they were recorded against.</li>
+ * <li>{@code --path <a|b|...>} and {@code --url <source>}: The source directories used as
+ * base path and url. Default to java, javafx and spigot.</li>
+ * <li>{@code --timeout-seconds <n>}: The maximum time to wait for all queries</li>
+ * </ul>
+ *
+ * <p>The sources are indexed from a {@link JavadocStandInServer}, which also answers the lookups
+ * of class pages during the replay, so nothing is fetched from the internet. The replay stops if
+ * a source can not be indexed.
+ *
+ * <p>Only the lookup commands are replayed. The latency of a query is measured from the time it
+ * was due until its first message was sent, or until the command completed if it sent nothing.
+ * Every query gets its own channel, as the log does not contain channel ids.
+ */
+public class QueryReplay {
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Map<String, String> options = parseOptions(args);
+    if (!options.containsKey("log")) {
+      System.out.println("Please pass the query log with '--log <file>'");
+      return;
+    }
+
+    List<QueryRecord> records = new ArrayList<>();
+    for (String line : Files.readAllLines(Paths.get(options.get("log")), StandardCharsets.UTF_8)) {
+      if (!line.trim().isEmpty()) {
+        records.add(QueryRecord.parse(line));
+      }
+    }
+
+    double speedup = Double.parseDouble(options.getOrDefault("speedup", "1"));
+    int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+    Duration timeout = Duration.ofSeconds(
+        Long.parseLong(options.getOrDefault("timeout-seconds", "600"))
+    );
+
+    try (JavadocStandInServer server = new JavadocStandInServer(createTree(options), threads)) {
+      server.start();
+
+      List<String> path = new ArrayList<>();
+      for (String source : options.getOrDefault("path", "java|javafx").split("\\|")) {
+        path.add(server.getBaseUrl(source.trim()));
+      }
+      // exits the program if the base path can not be indexed
+      JavadocFetcher fetcher = new JavadocFetcher(
+          path,
+          new ParallelIndexer(4, Duration.ofMinutes(10)),
+          IndexSnapshotStore.none(),
+          32 * 1024 * 1024,
+          10_000
+      );
+      String url = server.getBaseUrl(options.getOrDefault("url", "spigot"));
+      if (!fetcher.setUrl(url)) {
+        System.out.println("Could not index '" + url + "', not replaying");
+        return;
+      }
+
+      replay(records, createCommands(fetcher), speedup, threads, timeout);
+    }
+  }
+
+  private static JavadocTree createTree(Map<String, String> options) {
+    if (options.containsKey("root")) {
+      return new DirectoryJavadocTree(Paths.get(options.get("root")));
+    }
+    Map<String, String> sources = new LinkedHashMap<>();
+    sources.put("java", "java");
+    sources.put("javafx", "javafx");
+    sources.put("spigot", "org.bukkit");
+    return new GeneratedJavadocTree(SyntheticCorpus.standard(), sources);
+  }
+
+  private static Map<String, Command> createCommands(JavadocFetcher fetcher) throws IOException {
+    JavadocRenderer renderer = new JavadocRenderer(fetcher);
+    HotSetTracker hotSetTracker = new HotSetTracker(
+        Files.createTempFile("replay-hot-set", ".dat"), 1000
+    );
+
+    Map<String, Command> commands = new HashMap<>();
+    for (Command command : Arrays.asList(
+        new CommandJavadoc(fetcher, renderer, hotSetTracker),
+        new CommandPackage(fetcher, renderer),
+        new CommandListMethods(fetcher),
+        new CommandListPackages(fetcher))) {
+      commands.put(command.getKeyword(), command);
+    }
+    return commands;
+  }
+
+  private static void replay(List<QueryRecord> records, Map<String, Command> commands,
+      double speedup, int threads, Duration timeout) throws InterruptedException {
+    List<QueryRecord> replayed = new ArrayList<>();
+    for (QueryRecord record : records) {
+      if (commands.containsKey(record.getKeyword())) {
+        replayed.add(record);
+      }
+    }
+    if (replayed.isEmpty()) {
+      System.out.println("The log contains no replayable queries.");
+      return;
+    }
+
+    ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(
+        new DaemonThreadFactory("ReplayDispatcher")
+    );
+    ExecutorService workers = Executors.newFixedThreadPool(
+        threads, new DaemonThreadFactory("Replay")
+    );
+
+    long[] latencies = new long[replayed.size()];
+    AtomicInteger errors = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(replayed.size());
+
+    long firstTimestamp = replayed.get(0).getTimestamp();
+    long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+
+    for (int i = 0; i < replayed.size(); i++) {
+      QueryRecord record = replayed.get(i);
+      long offsetNanos = speedup <= 0
+          ? 0
+          : (long) (TimeUnit.MILLISECONDS.toNanos(record.getTimestamp() - firstTimestamp)
+              / speedup);
+      long dueNanos = startNanos + offsetNanos;
+      int index = i;
+
+      dispatcher.schedule(
+          () -> workers.execute(() -> run(
+              commands.get(record.getKeyword()), record, dueNanos, latency -> {
+                latencies[index] = latency;
+                done.countDown();
+              }, errors
+          )),
+          dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS
+      );
+    }
+
+    boolean completed = done.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    long wallNanos = System.nanoTime() - startNanos;
+    dispatcher.shutdownNow();
+    workers.shutdownNow();
+
+    if (!completed) {
+      System.out.printf(
+          "Timed out after %ds, %d of %d queries did not complete%n",
+          timeout.getSeconds(), done.getCount(), replayed.size()
+      );
+      return;
+    }
+    printReport(records.size(), replayed, latencies, errors.get(), wallNanos);
+  }
+
+  private static void run(Command command, QueryRecord record, long dueNanos,
+      LatencyConsumer onDone, AtomicInteger errors) {
+    HeadlessChannel channel = new HeadlessChannel();
+    try {
+      command.executeAsync(channel.getChannel(), channel.createMessage(), record.getArguments())
+          .whenComplete((result, error) -> {
+            if (error != null) {
+              errors.incrementAndGet();
+            }
+            if (error == null && channel.hasSends()) {
+              channel.getFirstSend().thenAccept(sentAt -> onDone.accept(sentAt - dueNanos));
+            } else {
+              onDone.accept(System.nanoTime() - dueNanos);
+            }
+          });
+    } catch (RuntimeException e) {
+      errors.incrementAndGet();
+      onDone.accept(System.nanoTime() - dueNanos);
+    }
+  }
+
+  private static void printReport(int total, List<QueryRecord> replayed, long[] latencies,
+      int errors, long wallNanos) {
+    long[] recorded = new long[replayed.size()];
+    for (int i = 0; i < recorded.length; i++) {
+      recorded[i] = replayed.get(i).getQueueNanos() + replayed.get(i).getParseNanos()
+          + replayed.get(i).getExecuteNanos();
+    }
+    Arrays.sort(latencies);
+    Arrays.sort(recorded);
+
+    double seconds = wallNanos / 1e9;
+    System.out.printf(
+        "Replayed %d of %d queries (%d errors) in %.2fs: %.1f queries/s%n",
+        replayed.size(), total, errors, seconds, replayed.size() / Math.max(seconds, 1e-9)
+    );
+    System.out.printf("%-10s %10s %10s %10s %10s%n", "", "p50 (ms)", "p99", "p999", "max");
+    printLatencies("replay", latencies);
+    printLatencies("recorded", recorded);
+  }
+
+  private static void printLatencies(String name, long[] sorted) {
+    System.out.printf(
+        "%-10s %10.2f %10.2f %10.2f %10.2f%n",
+        name,
+        percentile(sorted, 0.5) / 1e6,
+        percentile(sorted, 0.99) / 1e6,
+        percentile(sorted, 0.999) / 1e6,
+        sorted[sorted.length - 1] / 1e6
+    );
+  }
+
+  private static long percentile(long[] sorted, double percentile) {
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+
+  private static Map<String, String> parseOptions(String[] args) {
+    Map<String, String> options = new LinkedHashMap<>();
+    for (int i = 0; i < args.length; i++) {
+      if (!args[i].startsWith("--") || i + 1 >= args.length) {
+        throw new IllegalArgumentException("Expected '--<option> <value>' at '" + args[i] + "'");
+      }
+      options.put(args[i].substring(2), args[++i]);
+    }
+    return options;
+  }
+
+  @FunctionalInterface
+  private interface LatencyConsumer {
+
+    void accept(long latencyNanos);
+  }
+}
@@ -0,0 +1,73 @@
+package me.ialistannen.javadocbotrewrite.simplecommands;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finding the command for a message and splitting its arguments, as done by the
+ * {@link CommandHandler}. In this package, as the trie and tokenizer are package private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+  private static final String PREFIX = "-javadoc.";
+  private static final String[] KEYWORDS = {
+      "doc", "package", "listMethods", "listPackages", "setBaseUrl", "setBasePath",
+      "getBasePath", "help", "quit"
+  };
+  private static final String[] MESSAGES = {
+      "-javadoc.doc String#substring(int, int)",
+      "-javadoc.doc Player",
+      "-javadoc.listMethods ItemStack",
+      "-javadoc.package org.bukkit.entity",
+      "-javadoc.doc \"java.util.Map#computeIfAbsent(K, Function)\"",
+      "-javadoc.help",
+      "-javadoc.unknown command",
+      "-javadoc.DOC   List#add(int,  E)"
+  };
+
+  private KeywordTrie<String> keywords;
+  private int cursor;
+
+  @Setup
+  public void setUp() {
+    keywords = new KeywordTrie<>();
+    for (String keyword : KEYWORDS) {
+      keywords.put(keyword, keyword);
+    }
+  }
+
+  private String nextMessage() {
+    cursor = (cursor + 1) & (MESSAGES.length - 1);
+    return MESSAGES[cursor];
+  }
+
+  @Benchmark
+  public String findKeyword() {
+    return keywords.find(nextMessage(), PREFIX.length());
+  }
+
+  @Benchmark
+  public String[] dispatch() {
+    String message = nextMessage();
+    String keyword = keywords.find(message, PREFIX.length());
+    if (keyword == null) {
+      return null;
+    }
+    return ArgumentTokenizer.tokenize(message, PREFIX.length() + keyword.length());
+  }
+}
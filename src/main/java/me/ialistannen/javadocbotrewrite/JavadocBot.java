@@ -1,16 +1,37 @@
 package me.ialistannen.javadocbotrewrite;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javax.security.auth.login.LoginException;
 import me.ialistannen.javadocbotrewrite.config.Config;
+import me.ialistannen.javadocbotrewrite.metrics.Metrics;
+import me.ialistannen.javadocbotrewrite.metrics.MetricsServer;
+import me.ialistannen.javadocbotrewrite.prefetch.HotSetPrefetcher;
+import me.ialistannen.javadocbotrewrite.prefetch.HotSetTracker;
+import me.ialistannen.javadocbotrewrite.rendering.JavadocRenderer;
 import me.ialistannen.javadocbotrewrite.simplecommands.CommandHandler;
+import me.ialistannen.javadocbotrewrite.simplecommands.execution.CommandExecutor;
+import me.ialistannen.javadocbotrewrite.simplecommands.execution.RateLimiter;
+import me.ialistannen.javadocbotrewrite.simplecommands.execution.RejectionPolicy;
+import me.ialistannen.javadocbotrewrite.simplecommands.querylog.QueryLog;
 import me.ialistannen.javadocbotrewrite.util.JavadocFetcher;
+import me.ialistannen.javadocbotrewrite.util.MessageUtil;
+import me.ialistannen.javadocbotrewrite.util.PendingDeletionStore;
+import me.ialistannen.javadocbotrewrite.util.cache.LruCache;
+import me.ialistannen.javadocbotrewrite.util.index.IndexSnapshotStore;
+import me.ialistannen.javadocbotrewrite.util.index.ParallelIndexer;
 import net.dv8tion.jda.core.AccountType;
+import net.dv8tion.jda.core.JDA;
 import net.dv8tion.jda.core.JDABuilder;
 import net.dv8tion.jda.core.entities.Game;
 import net.dv8tion.jda.core.exceptions.RateLimitedException;
@@ -20,10 +41,14 @@ import net.dv8tion.jda.core.exceptions.RateLimitedException;
  */
 public class JavadocBot {
 
+  private static final Logger LOGGER = Logger.getLogger("JavadocBot");
+
   private static JavadocBot instance;
 
   private final CommandHandler commandHandler;
   private final JavadocFetcher javadocFetcher;
+  private final JavadocRenderer javadocRenderer;
+  private final HotSetTracker hotSetTracker;
   private final Config config;
 
   private JavadocBot(String token)
@@ -35,15 +60,160 @@ public class JavadocBot {
     instance = this;
 
     config = new Config("/me/ialistannen/javadocbotrewrite/config/config.properties");
-    javadocFetcher = new JavadocFetcher(config.getProperty("default_path").split("\\|"));
-    javadocFetcher.setUrl(config.getProperty("default_url"));
-    commandHandler = new CommandHandler("-javadoc.");
+    javadocFetcher = new JavadocFetcher(
+        Arrays.asList(config.getProperty("default_path").split("\\|")),
+        new ParallelIndexer(
+            config.getIntProperty("indexing_threads"),
+            Duration.ofSeconds(config.getLongProperty("indexing_timeout_seconds"))
+        ),
+        new IndexSnapshotStore(
+            new File("index_snapshots").getAbsoluteFile().toPath(),
+            Duration.ofHours(config.getLongProperty("snapshot_max_age_hours"))
+        ),
+        config.getLongProperty("method_cache_bytes"),
+        config.getIntProperty("query_cache_entries")
+    );
+    javadocFetcher.restoreUrl(config.getProperty("default_url"));
+
+    javadocRenderer = new JavadocRenderer(
+        javadocFetcher, config.getLongProperty("embed_cache_bytes")
+    );
+
+    hotSetTracker = new HotSetTracker(
+        new File("hot_set.dat").getAbsoluteFile().toPath(),
+        config.getIntProperty("hot_set_tracked")
+    );
+    hotSetTracker.load();
+    new HotSetPrefetcher(
+        javadocFetcher, javadocRenderer, hotSetTracker, config.getIntProperty("hot_set_prefetch")
+    ).start(Duration.ofMinutes(10));
+
+    long refreshInterval = config.getLongProperty("refresh_interval_minutes");
+    if (refreshInterval > 0) {
+      javadocFetcher.startRefreshing(Duration.ofMinutes(refreshInterval));
+    }
+    commandHandler = new CommandHandler(
+        "-javadoc.",
+        CommandExecutor.create(
+            config.getProperty("executor_type"),
+            config.getIntProperty("executor_threads"),
+            config.getIntProperty("executor_max_pending_per_guild")
+        ),
+        RejectionPolicy.valueOf(
+            config.getProperty("executor_rejection_policy").trim().toUpperCase(Locale.ROOT)
+        ),
+        new RateLimiter(config),
+        createQueryLog(config.getProperty("query_log_file"))
+    );
 
-    new JDABuilder(AccountType.BOT)
+    MessageUtil.usePendingDeletionStore(new PendingDeletionStore(
+        new File("pending_deletions.txt").getAbsoluteFile().toPath(),
+        Duration.ofSeconds(5)
+    ));
+
+    registerMetrics(Metrics.getDefault());
+    startMetricsServer(Metrics.getDefault(), config.getIntProperty("metrics_port"));
+
+    JDA jda = new JDABuilder(AccountType.BOT)
         .setToken(token)
         .setGame(Game.of("-javadoc.help"))
         .addEventListener(commandHandler)
         .buildBlocking();
+
+    MessageUtil.replayPendingDeletions(jda);
+  }
+
+  /**
+   * Registers the gauges and counters of all components.
+   *
+   * @param metrics The {@link Metrics} to register them in
+   */
+  private void registerMetrics(Metrics metrics) {
+    metrics.gauge(
+        "javadocbot_executor_queued_tasks", "The amount of commands waiting for the executor",
+        () -> commandHandler.getCommandExecutor().getQueuedTaskCount()
+    );
+
+    registerCache(metrics, "query", javadocFetcher.getQueryCache());
+    registerCache(metrics, "method", javadocFetcher.getMethodCache());
+    registerCache(metrics, "embed", javadocRenderer.getEmbedCache());
+
+    metrics.gaugeFamily(
+        "javadocbot_index_classes", "The amount of indexed classes per source",
+        "source", javadocFetcher::getIndexSizes
+    );
+
+    metrics.gauge(
+        "javadocbot_pending_deletions", "The amount of messages scheduled for deletion",
+        MessageUtil::getPendingDeletionCount
+    );
+    metrics.gauge(
+        "javadocbot_outbound_queued", "The amount of requests waiting to be sent to Discord",
+        () -> MessageUtil.getOutboundScheduler().getQueuedCount()
+    );
+    metrics.counter(
+        "javadocbot_outbound_dropped_total", "The amount of requests dropped for a full channel",
+        () -> MessageUtil.getOutboundScheduler().getDroppedSendCount(), "kind", "send"
+    );
+    metrics.counter(
+        "javadocbot_outbound_dropped_total", "The amount of requests dropped for a full channel",
+        () -> MessageUtil.getOutboundScheduler().getDroppedDeleteCount(), "kind", "delete"
+    );
+  }
+
+  /**
+   * @param metrics The {@link Metrics} to register the cache in
+   * @param name The name of the cache
+   * @param cache The {@link LruCache}
+   */
+  private static void registerCache(Metrics metrics, String name, LruCache<?, ?> cache) {
+    metrics.counter(
+        "javadocbot_cache_hits_total", "The amount of cache hits", cache::getHitCount,
+        "cache", name
+    );
+    metrics.counter(
+        "javadocbot_cache_misses_total", "The amount of cache misses", cache::getMissCount,
+        "cache", name
+    );
+    metrics.gauge(
+        "javadocbot_cache_hit_ratio", "The fraction of lookups answered by the cache",
+        () -> {
+          long hits = cache.getHitCount();
+          long total = hits + cache.getMissCount();
+          return total == 0 ? 0 : (double) hits / total;
+        },
+        "cache", name
+    );
+    metrics.gauge(
+        "javadocbot_cache_entries", "The amount of entries in the cache", cache::size,
+        "cache", name
+    );
+  }
+
+  /**
+   * @param metrics The {@link Metrics} to serve
+   * @param port The local port to serve them on. 0 to not serve them.
+   */
+  private static void startMetricsServer(Metrics metrics, int port) {
+    if (port <= 0) {
+      return;
+    }
+    try {
+      new MetricsServer(metrics, port).start();
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not serve metrics on port " + port, e);
+    }
+  }
+
+  /**
+   * @param file The file to log queries to. Null or empty to not log them.
+   * @return The {@link QueryLog}
+   */
+  private static QueryLog createQueryLog(String file) {
+    if (file == null || file.trim().isEmpty()) {
+      return QueryLog.none();
+    }
+    return QueryLog.toFile(new File(file.trim()).getAbsoluteFile().toPath(), 10_000);
   }
 
   /**
@@ -60,6 +230,20 @@ public class JavadocBot {
     return javadocFetcher;
   }
 
+  /**
+   * @return The {@link JavadocRenderer}
+   */
+  public JavadocRenderer getJavadocRenderer() {
+    return javadocRenderer;
+  }
+
+  /**
+   * @return The {@link HotSetTracker}
+   */
+  public HotSetTracker getHotSetTracker() {
+    return hotSetTracker;
+  }
+
   /**
    * @return The {@link Config}
    */
@@ -8,6 +8,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Properties;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -57,6 +58,13 @@ public class Config {
     return properties;
   }
 
+  /**
+   * @return All keys, including the ones only set in the defaults
+   */
+  public Set<String> getKeys() {
+    return properties.stringPropertyNames();
+  }
+
   /**
    * Returns a value.
    *
@@ -67,6 +75,28 @@ public class Config {
     return properties.getProperty(key);
   }
 
+  /**
+   * Returns a value as an int.
+   *
+   * @param key The key
+   * @return The value of the property
+   * @throws NumberFormatException if the value is no valid int
+   */
+  public int getIntProperty(String key) {
+    return Integer.parseInt(getProperty(key).trim());
+  }
+
+  /**
+   * Returns a value as a long.
+   *
+   * @param key The key
+   * @return The value of the property
+   * @throws NumberFormatException if the value is no valid long
+   */
+  public long getLongProperty(String key) {
+    return Long.parseLong(getProperty(key).trim());
+  }
+
   /**
    * Sets a value.
    *
@@ -0,0 +1,116 @@
+package me.ialistannen.javadocbotrewrite.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations with fixed buckets, cheap enough to record on every request.
+ *
+ * <p>The buckets grow roughly exponentially from half a millisecond to 30 seconds. Percentiles
+ * are therefore only accurate to the bucket they fall in.
+ */
+public class LatencyHistogram {
+
+  private static final double[] BOUNDS_SECONDS = {
+      0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30
+  };
+  private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+
+  static {
+    for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+      BOUNDS_NANOS[i] = (long) (BOUNDS_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+    }
+  }
+
+  /**
+   * The last bucket holds everything above the highest bound.
+   */
+  private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sumNanos = new LongAdder();
+
+  LatencyHistogram() {
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos The duration in nanoseconds
+   */
+  public void record(long nanos) {
+    int bucket = 0;
+    while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+      bucket++;
+    }
+    buckets[bucket].increment();
+    count.increment();
+    sumNanos.add(nanos);
+  }
+
+  /**
+   * Records the time since a given start.
+   *
+   * @param startNanos The {@link System#nanoTime()} the measured action started at
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * @return The amount of recorded durations
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * @return The sum of all recorded durations in seconds
+   */
+  public double getSumSeconds() {
+    return sumNanos.sum() / 1e9;
+  }
+
+  /**
+   * @param percentile The percentile, between 0 and 1
+   * @return The upper bound of the bucket the percentile falls in, in seconds. Infinity if it is
+   * above the highest bound, 0 if nothing was recorded.
+   */
+  public double getPercentileSeconds(double percentile) {
+    long[] counts = getCumulativeCounts();
+    long total = counts[counts.length - 1];
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = (long) Math.ceil(percentile * total);
+    for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+      if (counts[i] >= rank) {
+        return BOUNDS_SECONDS[i];
+      }
+    }
+    return Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * @return The amount of durations less or equal to each bound, followed by the total
+   */
+  long[] getCumulativeCounts() {
+    long[] counts = new long[buckets.length];
+    long sum = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      sum += buckets[i].sum();
+      counts[i] = sum;
+    }
+    return counts;
+  }
+
+  /**
+   * @return The upper bounds of all buckets but the last in seconds
+   */
+  static double[] getBoundsSeconds() {
+    return BOUNDS_SECONDS.clone();
+  }
+}
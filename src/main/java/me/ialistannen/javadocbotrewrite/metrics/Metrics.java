@@ -0,0 +1,218 @@
+package me.ialistannen.javadocbotrewrite.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A registry of all metrics of the bot.
+ *
+ * <p>Metrics are grouped in families sharing a name, like {@code javadocbot_send_seconds}. The
+ * series of a family are told apart by their labels, which are passed as alternating names and
+ * values. Asking for an existing series returns it, so metrics can be looked up where they are
+ * recorded.
+ */
+public class Metrics {
+
+  private static final Metrics DEFAULT = new Metrics();
+
+  private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+  /**
+   * @return The {@link Metrics} the bot records to
+   */
+  public static Metrics getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * @param name The name of the family
+   * @param help The description of the family
+   * @param labels The labels of the series as alternating names and values
+   * @return The {@link LatencyHistogram} for the series
+   */
+  public LatencyHistogram histogram(String name, String help, String... labels) {
+    return (LatencyHistogram) getFamily(name, help, Type.HISTOGRAM).series
+        .computeIfAbsent(formatLabels(labels), key -> new LatencyHistogram());
+  }
+
+  /**
+   * Registers a value that can go up and down. Replaces an existing series with the same labels.
+   *
+   * @param name The name of the family
+   * @param help The description of the family
+   * @param value Supplies the current value
+   * @param labels The labels of the series as alternating names and values
+   */
+  public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+    getFamily(name, help, Type.GAUGE).series.put(formatLabels(labels), value);
+  }
+
+  /**
+   * Registers a value that only goes up. Replaces an existing series with the same labels.
+   *
+   * @param name The name of the family
+   * @param help The description of the family
+   * @param value Supplies the current value
+   * @param labels The labels of the series as alternating names and values
+   */
+  public void counter(String name, String help, DoubleSupplier value, String... labels) {
+    getFamily(name, help, Type.COUNTER).series.put(formatLabels(labels), value);
+  }
+
+  /**
+   * Registers gauges whose series are only known when they are read, like one per source.
+   *
+   * @param name The name of the family
+   * @param help The description of the family
+   * @param labelName The name of the single label
+   * @param values Supplies the current values keyed by their label value
+   */
+  public void gaugeFamily(String name, String help, String labelName,
+      Supplier<Map<String, ? extends Number>> values) {
+    Family family = getFamily(name, help, Type.GAUGE);
+    family.dynamicLabel = labelName;
+    family.dynamicValues = values;
+  }
+
+  /**
+   * Reads all metrics.
+   *
+   * @return All families keyed by name, each with its series keyed by the formatted labels. A
+   * series is either a {@link LatencyHistogram} or a {@link Double}.
+   */
+  public Map<String, Map<String, Object>> snapshot() {
+    Map<String, Map<String, Object>> result = new TreeMap<>();
+    for (Family family : families.values()) {
+      result.put(family.name, readSeries(family));
+    }
+    return result;
+  }
+
+  /**
+   * @return All metrics in the Prometheus text exposition format
+   */
+  public String toPrometheusText() {
+    StringBuilder result = new StringBuilder();
+    for (Family family : new TreeMap<>(families).values()) {
+      result.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n')
+          .append("# TYPE ").append(family.name).append(' ')
+          .append(family.type.name().toLowerCase(Locale.ROOT)).append('\n');
+
+      for (Entry<String, Object> series : readSeries(family).entrySet()) {
+        if (series.getValue() instanceof LatencyHistogram) {
+          appendHistogram(result, family.name, series.getKey(),
+              (LatencyHistogram) series.getValue());
+        } else {
+          appendSample(result, family.name, series.getKey(), (Double) series.getValue());
+        }
+      }
+    }
+    return result.toString();
+  }
+
+  private Family getFamily(String name, String help, Type type) {
+    Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+    if (family.type != type) {
+      throw new IllegalArgumentException(name + " is a " + family.type + ", not a " + type);
+    }
+    return family;
+  }
+
+  private static Map<String, Object> readSeries(Family family) {
+    Map<String, Object> result = new TreeMap<>();
+    for (Entry<String, Object> series : family.series.entrySet()) {
+      Object value = series.getValue();
+      result.put(
+          series.getKey(),
+          value instanceof DoubleSupplier ? ((DoubleSupplier) value).getAsDouble() : value
+      );
+    }
+
+    Supplier<Map<String, ? extends Number>> dynamicValues = family.dynamicValues;
+    if (dynamicValues != null) {
+      for (Entry<String, ? extends Number> value : dynamicValues.get().entrySet()) {
+        result.put(
+            formatLabels(family.dynamicLabel, value.getKey()),
+            value.getValue().doubleValue()
+        );
+      }
+    }
+    return result;
+  }
+
+  private static void appendHistogram(StringBuilder result, String name, String labels,
+      LatencyHistogram histogram) {
+    double[] bounds = LatencyHistogram.getBoundsSeconds();
+    long[] counts = histogram.getCumulativeCounts();
+    String labelPrefix = labels.isEmpty() ? "" : labels + ",";
+
+    for (int i = 0; i < counts.length; i++) {
+      String bound = i < bounds.length ? Double.toString(bounds[i]) : "+Inf";
+      result.append(name).append("_bucket{").append(labelPrefix)
+          .append("le=\"").append(bound).append("\"} ").append(counts[i]).append('\n');
+    }
+    appendSample(result, name + "_sum", labels, histogram.getSumSeconds());
+    appendSample(result, name + "_count", labels, counts[counts.length - 1]);
+  }
+
+  private static void appendSample(StringBuilder result, String name, String labels,
+      double value) {
+    result.append(name);
+    if (!labels.isEmpty()) {
+      result.append('{').append(labels).append('}');
+    }
+    result.append(' ');
+    if (value == Math.rint(value) && !Double.isInfinite(value)) {
+      result.append((long) value);
+    } else {
+      result.append(value);
+    }
+    result.append('\n');
+  }
+
+  /**
+   * @param labels Alternating label names and values
+   * @return The labels in the form {@code name="value",other="value"}
+   */
+  private static String formatLabels(String... labels) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("Labels must be pairs of name and value");
+    }
+    List<String> parts = new ArrayList<>();
+    for (int i = 0; i < labels.length; i += 2) {
+      parts.add(labels[i] + "=\"" + escapeLabelValue(labels[i + 1]) + "\"");
+    }
+    return String.join(",", parts);
+  }
+
+  private static String escapeLabelValue(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private enum Type {
+    GAUGE, COUNTER, HISTOGRAM
+  }
+
+  private static class Family {
+
+    private final String name;
+    private final String help;
+    private final Type type;
+    private final Map<String, Object> series = new ConcurrentHashMap<>();
+    private volatile String dynamicLabel;
+    private volatile Supplier<Map<String, ? extends Number>> dynamicValues;
+
+    private Family(String name, String help, Type type) {
+      this.name = name;
+      this.help = help;
+      this.type = type;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package me.ialistannen.javadocbotrewrite.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+import me.ialistannen.javadocbotrewrite.util.DaemonThreadFactory;
+
+/**
+ * Serves {@link Metrics} in the Prometheus text format under {@code /metrics}.
+ *
+ * <p>The server only listens on the loopback interface.
+ */
+public class MetricsServer {
+
+  private static final Logger LOGGER = Logger.getLogger("MetricsServer");
+
+  private final HttpServer server;
+
+  /**
+   * Binds the server. It is not started yet.
+   *
+   * @param metrics The {@link Metrics} to serve
+   * @param port The port to listen on
+   * @throws IOException if the port could not be bound
+   */
+  public MetricsServer(Metrics metrics, int port) throws IOException {
+    this.server = HttpServer.create(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0
+    );
+    server.setExecutor(Executors.newSingleThreadExecutor(new DaemonThreadFactory("Metrics")));
+    server.createContext("/metrics", exchange -> serve(exchange, metrics));
+  }
+
+  /**
+   * Starts serving requests.
+   */
+  public void start() {
+    server.start();
+    LOGGER.info("Serving metrics on " + server.getAddress());
+  }
+
+  private static void serve(HttpExchange exchange, Metrics metrics) throws IOException {
+    try {
+      byte[] body = metrics.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream outputStream = exchange.getResponseBody()) {
+        outputStream.write(body);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+}
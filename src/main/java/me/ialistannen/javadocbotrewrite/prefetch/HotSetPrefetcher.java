@@ -0,0 +1,121 @@
+package me.ialistannen.javadocbotrewrite.prefetch;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
+import me.ialistannen.javadocbot.javadoc.model.JavadocMethod;
+import me.ialistannen.javadocbotrewrite.prefetch.HotSetTracker.HotQuery;
+import me.ialistannen.javadocbotrewrite.rendering.JavadocRenderer;
+import me.ialistannen.javadocbotrewrite.util.DaemonThreadFactory;
+import me.ialistannen.javadocbotrewrite.util.JavadocFetcher;
+import me.ialistannen.javadocbotrewrite.util.StringUtil;
+
+/**
+ * Warms the caches with the most frequent queries of a {@link HotSetTracker}, so they are fast
+ * right after a restart or a source change.
+ */
+public class HotSetPrefetcher {
+
+  private static final Logger LOGGER = Logger.getLogger("HotSetPrefetcher");
+
+  private final JavadocFetcher javadocFetcher;
+  private final JavadocRenderer renderer;
+  private final HotSetTracker tracker;
+  private final int amount;
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+      new DaemonThreadFactory("HotSetPrefetcher")
+  );
+  private final AtomicBoolean prefetchPending = new AtomicBoolean();
+
+  /**
+   * @param javadocFetcher The {@link JavadocFetcher} to look the queries up with
+   * @param renderer The {@link JavadocRenderer} to render them with
+   * @param tracker The {@link HotSetTracker} providing the queries
+   * @param amount The amount of queries to prefetch
+   */
+  public HotSetPrefetcher(JavadocFetcher javadocFetcher, JavadocRenderer renderer,
+      HotSetTracker tracker, int amount) {
+    this.javadocFetcher = javadocFetcher;
+    this.renderer = renderer;
+    this.tracker = tracker;
+    this.amount = amount;
+  }
+
+  /**
+   * Prefetches now and after every source change, and periodically saves the tracker.
+   *
+   * @param saveInterval The interval to save the tracker in
+   */
+  public void start(Duration saveInterval) {
+    javadocFetcher.addSourceChangeListener(this::prefetchAsync);
+    prefetchAsync();
+
+    long interval = saveInterval.toMillis();
+    executor.scheduleWithFixedDelay(tracker::save, interval, interval, TimeUnit.MILLISECONDS);
+    Runtime.getRuntime().addShutdownHook(new Thread(tracker::save, "HotSetSaver"));
+  }
+
+  /**
+   * Prefetches the hottest queries in the background. Does nothing if a prefetch is already
+   * waiting to run.
+   */
+  public void prefetchAsync() {
+    if (amount <= 0 || !prefetchPending.compareAndSet(false, true)) {
+      return;
+    }
+    executor.execute(() -> {
+      prefetchPending.set(false);
+      prefetch();
+    });
+  }
+
+  private void prefetch() {
+    List<HotQuery> queries = tracker.getHottest(amount);
+    long start = System.nanoTime();
+
+    for (HotQuery query : queries) {
+      try {
+        prefetch(query);
+      } catch (RuntimeException e) {
+        LOGGER.log(Level.FINE, "Could not prefetch " + query, e);
+      }
+    }
+
+    LOGGER.info(String.format(
+        "Prefetched %d queries in %d ms",
+        queries.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+    ));
+  }
+
+  private void prefetch(HotQuery query) {
+    // look up what the user typed, so exactly that query is cached
+    JavadocClass javadocClass = null;
+    for (JavadocClass candidate : javadocFetcher.getClassesEndingIn(query.getClassQuery())) {
+      if (StringUtil.getQualifiedName(candidate).equals(query.getClassName())) {
+        javadocClass = candidate;
+        break;
+      }
+    }
+    if (javadocClass == null) {
+      return;
+    }
+
+    if (!query.getMethodSelector().isPresent()) {
+      renderer.renderClass(javadocClass);
+      return;
+    }
+
+    List<JavadocMethod> methods = javadocFetcher.getMethodWithParams(
+        javadocClass, query.getMethodSelector().get()
+    );
+    if (methods.size() == 1) {
+      renderer.renderMethod(methods.get(0));
+    }
+  }
+}
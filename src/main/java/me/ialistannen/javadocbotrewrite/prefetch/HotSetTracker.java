@@ -0,0 +1,289 @@
+package me.ialistannen.javadocbotrewrite.prefetch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import me.ialistannen.javadocbotrewrite.util.cache.CountMinSketch;
+
+/**
+ * Keeps track of the most requested classes and methods.
+ *
+ * <p>How often each javadoc url was resolved is estimated by a {@link CountMinSketch}. As the
+ * sketch can not list its keys, the queries for the currently most frequent urls are kept in a
+ * small candidate table. The candidates are also ordered by their estimate, so the coldest one
+ * can be replaced in logarithmic time.
+ *
+ * <p>The tracker file has the following layout:
+ * <pre>
+ *   int     magic number
+ *   int     format version
+ *   ...     the sketch, see {@link CountMinSketch#writeTo(java.io.DataOutput)}
+ *   int     amount of candidates, each followed by
+ *             UTF    url
+ *             UTF    class name as the user typed it
+ *             UTF    fully qualified class name
+ *             UTF    method selector or the empty string
+ * </pre>
+ */
+public class HotSetTracker {
+
+  private static final Logger LOGGER = Logger.getLogger("HotSetTracker");
+
+  private static final int MAGIC = 0x4A444853;
+  private static final int FORMAT_VERSION = 2;
+
+  private static final int SKETCH_WIDTH = 1 << 16;
+  private static final long SKETCH_SAMPLE_SIZE = 10L * SKETCH_WIDTH;
+
+  private final Path file;
+  private final int capacity;
+  private final CountMinSketch sketch = new CountMinSketch(SKETCH_WIDTH, SKETCH_SAMPLE_SIZE);
+  /**
+   * The candidates keyed by their url. Guarded by itself.
+   */
+  private final Map<String, Candidate> candidates = new HashMap<>();
+  /**
+   * The same candidates, coldest first. Guarded by {@link #candidates}.
+   */
+  private final TreeSet<Candidate> byEstimate = new TreeSet<>(
+      Comparator.<Candidate>comparingInt(candidate -> candidate.estimate)
+          .thenComparing(candidate -> candidate.query.getUrl())
+  );
+
+  /**
+   * @param file The file to persist the tracker in. Null to not persist it.
+   * @param capacity The maximum amount of queries to remember
+   */
+  public HotSetTracker(Path file, int capacity) {
+    this.file = file;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Records that a class or method was resolved.
+   *
+   * @param url The url of the resolved class or method
+   * @param classQuery The class name as the user typed it
+   * @param className The fully qualified name of the class
+   * @param methodSelector The method selector or null if a class was resolved
+   */
+  public void record(String url, String classQuery, String className, String methodSelector) {
+    if (url == null || capacity <= 0) {
+      return;
+    }
+    int estimate = sketch.increment(url);
+
+    synchronized (candidates) {
+      Candidate existing = candidates.get(url);
+      if (existing != null) {
+        byEstimate.remove(existing);
+        existing.estimate = estimate;
+        byEstimate.add(existing);
+        return;
+      }
+
+      if (candidates.size() >= capacity) {
+        if (byEstimate.first().estimate >= estimate) {
+          return;
+        }
+        candidates.remove(byEstimate.pollFirst().query.getUrl());
+      }
+
+      addCandidate(new Candidate(
+          new HotQuery(url, classQuery, className, methodSelector), estimate
+      ));
+    }
+  }
+
+  /**
+   * Must hold the lock of {@link #candidates}.
+   *
+   * @param candidate The {@link Candidate} to add
+   */
+  private void addCandidate(Candidate candidate) {
+    candidates.put(candidate.query.getUrl(), candidate);
+    byEstimate.add(candidate);
+  }
+
+  /**
+   * @param amount The maximum amount of queries to return
+   * @return The most frequent queries, most frequent first
+   */
+  public List<HotQuery> getHottest(int amount) {
+    List<HotQuery> queries;
+    synchronized (candidates) {
+      queries = candidates.values().stream()
+          .map(candidate -> candidate.query)
+          .collect(Collectors.toList());
+    }
+
+    // the sketch keeps changing, so take a snapshot of the estimates to sort by
+    Map<HotQuery, Integer> estimates = new HashMap<>();
+    for (HotQuery query : queries) {
+      estimates.put(query, sketch.estimate(query.getUrl()));
+    }
+
+    return queries.stream()
+        .sorted(Comparator.comparing(estimates::get, Comparator.reverseOrder()))
+        .limit(amount)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Loads the tracker from its file, if it exists.
+   */
+  public void load() {
+    if (file == null || Files.notExists(file)) {
+      return;
+    }
+    try (DataInputStream input = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+
+      if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+        LOGGER.info("Ignoring hot set file with an unknown format: " + file);
+        return;
+      }
+      sketch.readFrom(input);
+
+      int amount = input.readInt();
+      List<HotQuery> queries = new ArrayList<>(amount);
+      for (int i = 0; i < amount; i++) {
+        String url = input.readUTF();
+        String classQuery = input.readUTF();
+        String className = input.readUTF();
+        String methodSelector = input.readUTF();
+        queries.add(new HotQuery(
+            url, classQuery, className, methodSelector.isEmpty() ? null : methodSelector
+        ));
+      }
+
+      synchronized (candidates) {
+        candidates.clear();
+        byEstimate.clear();
+        for (HotQuery query : queries.subList(0, Math.min(capacity, queries.size()))) {
+          addCandidate(new Candidate(query, sketch.estimate(query.getUrl())));
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not load the hot set from " + file, e);
+    }
+  }
+
+  /**
+   * Writes the tracker to its file.
+   */
+  public void save() {
+    if (file == null) {
+      return;
+    }
+    List<HotQuery> queries = getHottest(capacity);
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+    try (DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+
+      output.writeInt(MAGIC);
+      output.writeInt(FORMAT_VERSION);
+      sketch.writeTo(output);
+
+      output.writeInt(queries.size());
+      for (HotQuery query : queries) {
+        output.writeUTF(query.getUrl());
+        output.writeUTF(query.getClassQuery());
+        output.writeUTF(query.getClassName());
+        output.writeUTF(query.getMethodSelector().orElse(""));
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not save the hot set to " + file, e);
+      return;
+    }
+
+    try {
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not move the hot set to " + file, e);
+    }
+  }
+
+  private static class Candidate {
+
+    private final HotQuery query;
+    private int estimate;
+
+    private Candidate(HotQuery query, int estimate) {
+      this.query = query;
+      this.estimate = estimate;
+    }
+  }
+
+  /**
+   * A frequently requested class or method.
+   */
+  public static class HotQuery {
+
+    private final String url;
+    private final String classQuery;
+    private final String className;
+    private final String methodSelector;
+
+    private HotQuery(String url, String classQuery, String className, String methodSelector) {
+      this.url = url;
+      this.classQuery = classQuery;
+      this.className = className;
+      this.methodSelector = methodSelector;
+    }
+
+    /**
+     * @return The url of the class or method
+     */
+    public String getUrl() {
+      return url;
+    }
+
+    /**
+     * @return The class name as the user typed it
+     */
+    public String getClassQuery() {
+      return classQuery;
+    }
+
+    /**
+     * @return The fully qualified name of the class
+     */
+    public String getClassName() {
+      return className;
+    }
+
+    /**
+     * @return The method selector, if a method was requested
+     */
+    public Optional<String> getMethodSelector() {
+      return Optional.ofNullable(methodSelector);
+    }
+
+    @Override
+    public String toString() {
+      return "HotQuery{"
+          + "classQuery='" + classQuery + '\''
+          + ", className='" + className + '\''
+          + ", methodSelector='" + methodSelector + '\''
+          + '}';
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package me.ialistannen.javadocbotrewrite.rendering;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
+import me.ialistannen.javadocbot.javadoc.model.JavadocMethod;
+import me.ialistannen.javadocbot.javadoc.model.Package;
+import me.ialistannen.javadocbotrewrite.icons.IconCollection;
+import me.ialistannen.javadocbotrewrite.util.JavadocFetcher;
+import me.ialistannen.javadocbotrewrite.util.StringUtil;
+import me.ialistannen.javadocbotrewrite.util.TextFormatter;
+import me.ialistannen.javadocbotrewrite.util.cache.LruCache;
+import net.dv8tion.jda.core.EmbedBuilder;
+import net.dv8tion.jda.core.entities.MessageEmbed;
+
+/**
+ * Renders javadoc to {@link MessageEmbed}s and caches the finished embeds by their javadoc url.
+ *
+ * <p>The cache is cleared whenever the {@link JavadocFetcher#getGeneration() generation} of
+ * the fetcher changes.
+ */
+public class JavadocRenderer {
+
+  private static final long DEFAULT_CACHE_BYTES = 16 * 1024 * 1024;
+  private static final TextFormatter DESCRIPTION_FORMATTER = StringUtil.descriptionFormatter(
+      MessageEmbed.TEXT_MAX_LENGTH
+  );
+
+  private final JavadocFetcher javadocFetcher;
+  private final LruCache<String, MessageEmbed> embedCache;
+  private final AtomicLong cachedGeneration;
+
+  /**
+   * Creates a renderer with a 16 MiB cache.
+   *
+   * @param javadocFetcher The {@link JavadocFetcher} whose generation to watch
+   * @see #JavadocRenderer(JavadocFetcher, long)
+   */
+  public JavadocRenderer(JavadocFetcher javadocFetcher) {
+    this(javadocFetcher, DEFAULT_CACHE_BYTES);
+  }
+
+  /**
+   * @param javadocFetcher The {@link JavadocFetcher} whose generation to watch
+   * @param cacheBytes The approximate maximum size of all cached embeds in bytes
+   */
+  public JavadocRenderer(JavadocFetcher javadocFetcher, long cacheBytes) {
+    this.javadocFetcher = javadocFetcher;
+    this.embedCache = new LruCache<>(cacheBytes, JavadocRenderer::estimateSize);
+    this.cachedGeneration = new AtomicLong(javadocFetcher.getGeneration());
+  }
+
+  /**
+   * @param javadocClass The {@link JavadocClass} to render
+   * @return The rendered embed
+   */
+  public MessageEmbed renderClass(JavadocClass javadocClass) {
+    return getCached(javadocClass.getUrl(), () -> createClassEmbed(javadocClass));
+  }
+
+  /**
+   * @param method The {@link JavadocMethod} to render
+   * @return The rendered embed
+   */
+  public MessageEmbed renderMethod(JavadocMethod method) {
+    return getCached(method.getUrl(), () -> createMethodEmbed(method));
+  }
+
+  /**
+   * @param aPackage The {@link Package} to render
+   * @return The rendered embed
+   */
+  public MessageEmbed renderPackage(Package aPackage) {
+    return getCached(aPackage.getUrl(), () -> createPackageEmbed(aPackage));
+  }
+
+  /**
+   * @return The cache for rendered embeds
+   */
+  public LruCache<String, MessageEmbed> getEmbedCache() {
+    return embedCache;
+  }
+
+  private MessageEmbed getCached(String url, Supplier<MessageEmbed> renderer) {
+    invalidateIfOutdated();
+
+    if (url == null) {
+      return renderer.get();
+    }
+    return embedCache.get(url, ignored -> renderer.get());
+  }
+
+  private void invalidateIfOutdated() {
+    long generation = javadocFetcher.getGeneration();
+    long cached = cachedGeneration.get();
+    if (cached != generation && cachedGeneration.compareAndSet(cached, generation)) {
+      embedCache.invalidateAll();
+    }
+  }
+
+  private MessageEmbed createMethodEmbed(JavadocMethod method) {
+    String description = DESCRIPTION_FORMATTER.format(method.getDescription());
+
+    return new EmbedBuilder()
+        .setAuthor(
+            StringUtil.stripFormatting(method.getDeclaration()),
+            method.getUrl(),
+            getMethodIcon(method)
+        )
+        .setDescription(description)
+        .build();
+  }
+
+  private MessageEmbed createClassEmbed(JavadocClass javadocClass) {
+    String description = javadocClass.getDescription();
+
+    String headerFormat = "```java\n%s\n```\n";
+    String superclasses = StringUtil.stripFormatting(
+        javadocClass.getType() + " " + javadocClass.getExtendsImplements()
+    );
+    String header = String.format(headerFormat, superclasses);
+
+    description = DESCRIPTION_FORMATTER.format(header, description);
+
+    return new EmbedBuilder()
+        .setAuthor(
+            StringUtil.stripFormatting(javadocClass.getNameWithModifiers()),
+            javadocClass.getUrl(),
+            getClassIcon(javadocClass)
+        )
+        .setDescription(description)
+        .build();
+  }
+
+  private MessageEmbed createPackageEmbed(Package aPackage) {
+    String description = DESCRIPTION_FORMATTER.format(aPackage.getDescription());
+
+    return new EmbedBuilder()
+        .setThumbnail(IconCollection.PACKAGE.getUrl())
+        .setAuthor(aPackage.getName(), aPackage.getUrl(), null)
+        .setDescription(description)
+        .build();
+  }
+
+  private String getMethodIcon(JavadocMethod method) {
+    String declaration = StringUtil.sanitizeSpaces(method.getDeclaration());
+    if (declaration.contains("abstract ")) {
+      return IconCollection.METHOD_ABSTRACT.getUrl();
+    }
+    return IconCollection.METHOD.getUrl();
+  }
+
+  private String getClassIcon(JavadocClass javadocClass) {
+    String nameWithModifiers = StringUtil.sanitizeSpaces(javadocClass.getNameWithModifiers());
+    if (nameWithModifiers.contains("interface ")) {
+      return IconCollection.INTERFACE.getUrl();
+    }
+    if (nameWithModifiers.contains("abstract ")) {
+      return IconCollection.CLASS_ABSTRACT.getUrl();
+    }
+    if (nameWithModifiers.contains("final ")) {
+      return IconCollection.CLASS_FINAL.getUrl();
+    }
+    if (nameWithModifiers.contains("enum ")) {
+      return IconCollection.CLASS_ENUM.getUrl();
+    }
+    if (nameWithModifiers.contains("annotation ")) {
+      return IconCollection.CLASS_ANNOTATION.getUrl();
+    }
+    return IconCollection.CLASS.getUrl();
+  }
+
+  /**
+   * Estimates the retained size of an embed. Strings are counted with two bytes per char, plus
+   * a flat overhead for the objects themselves.
+   *
+   * @param embed The embed
+   * @return The approximate size in bytes
+   */
+  private static long estimateSize(MessageEmbed embed) {
+    long chars = length(embed.getDescription()) + length(embed.getUrl());
+    if (embed.getAuthor() != null) {
+      chars += length(embed.getAuthor().getName())
+          + length(embed.getAuthor().getUrl())
+          + length(embed.getAuthor().getIconUrl());
+    }
+    if (embed.getThumbnail() != null) {
+      chars += length(embed.getThumbnail().getUrl());
+    }
+    return 256 + chars * 2;
+  }
+
+  private static int length(String string) {
+    return string == null ? 0 : string.length();
+  }
+}
@@ -0,0 +1,64 @@
+package me.ialistannen.javadocbotrewrite.simplecommands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the arguments of a command at whitespace.
+ *
+ * <p>Arguments wrapped in double quotes may contain whitespace. Inside them a backslash escapes
+ * the next character.
+ */
+class ArgumentTokenizer {
+
+  /**
+   * Tokenizes the arguments.
+   *
+   * @param input The input
+   * @param start The index the arguments start at
+   * @return The arguments. Never contains empty arguments, unless they were quoted.
+   */
+  static String[] tokenize(CharSequence input, int start) {
+    List<String> arguments = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    boolean inQuotes = false;
+    boolean hasArgument = false;
+
+    for (int i = start; i < input.length(); i++) {
+      char character = input.charAt(i);
+
+      if (inQuotes) {
+        if (character == '\\' && i + 1 < input.length()) {
+          current.append(input.charAt(++i));
+        } else if (character == '"') {
+          inQuotes = false;
+        } else {
+          current.append(character);
+        }
+        continue;
+      }
+
+      if (Character.isWhitespace(character)) {
+        if (hasArgument) {
+          arguments.add(current.toString());
+          current.setLength(0);
+          hasArgument = false;
+        }
+        continue;
+      }
+
+      hasArgument = true;
+      if (character == '"') {
+        inQuotes = true;
+      } else {
+        current.append(character);
+      }
+    }
+
+    if (hasArgument) {
+      arguments.add(current.toString());
+    }
+
+    return arguments.toArray(new String[0]);
+  }
+}
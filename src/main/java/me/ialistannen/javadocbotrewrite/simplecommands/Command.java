@@ -4,31 +4,45 @@ import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
 import me.ialistannen.javadocbot.javadoc.model.JavadocMethod;
 import me.ialistannen.javadocbotrewrite.JavadocBot;
+import me.ialistannen.javadocbotrewrite.metrics.LatencyHistogram;
+import me.ialistannen.javadocbotrewrite.metrics.Metrics;
 import me.ialistannen.javadocbotrewrite.simplecommands.permissions.PermissionProvider;
 import me.ialistannen.javadocbotrewrite.simplecommands.permissions.PermissionProvider.PermissionLevel;
+import me.ialistannen.javadocbotrewrite.util.EmbedPacker;
 import me.ialistannen.javadocbotrewrite.util.JavadocFetcher;
 import me.ialistannen.javadocbotrewrite.util.MessageUtil;
+import me.ialistannen.javadocbotrewrite.util.StringUtil;
+import me.ialistannen.javadocbotrewrite.util.index.SourceSnapshot.ClassEntry;
 import net.dv8tion.jda.core.entities.Member;
 import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.MessageChannel;
+import net.dv8tion.jda.core.entities.MessageEmbed;
 import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.requests.RestAction;
 
 /**
  * The command base.
  */
 public abstract class Command {
 
-  private static final int MAX_TEXT_LENGTH = 2000;
+  private static final int MAX_SUGGESTIONS = 5;
 
   private String keyword;
   private String usage;
   private String description;
   private JavadocFetcher javadocFetcher;
 
+  private final LatencyHistogram[] stageHistograms =
+      new LatencyHistogram[CommandStage.values().length];
+
   private PermissionProvider permissionProvider = PermissionProvider.getDefault();
 
   /**
@@ -78,6 +92,55 @@ public abstract class Command {
     return javadocFetcher;
   }
 
+  /**
+   * @param stage The {@link CommandStage}
+   * @return The histogram the durations of the stage are recorded in
+   */
+  LatencyHistogram getStageHistogram(CommandStage stage) {
+    LatencyHistogram histogram = stageHistograms[stage.ordinal()];
+    if (histogram == null) {
+      // the registry returns the same instance, so racing here is harmless
+      histogram = Metrics.getDefault().histogram(
+          "javadocbot_command_stage_seconds", "The duration of the stages of a command",
+          "command", getKeyword(), "stage", stage.getLabel()
+      );
+      stageHistograms[stage.ordinal()] = histogram;
+    }
+    return histogram;
+  }
+
+  /**
+   * Runs an action and records its duration as the given stage.
+   *
+   * @param stage The {@link CommandStage} the action belongs to
+   * @param action The action
+   * @param <T> The type of the result
+   * @return The result of the action
+   */
+  protected <T> T measure(CommandStage stage, Supplier<T> action) {
+    long start = System.nanoTime();
+    try {
+      return action.get();
+    } finally {
+      getStageHistogram(stage).recordSince(start);
+    }
+  }
+
+  /**
+   * Starts an asynchronous action and records the time until it completed as the given stage.
+   *
+   * @param stage The {@link CommandStage} the action belongs to
+   * @param action Starts the action
+   * @param <T> The type of the result
+   * @return The future of the action
+   */
+  protected <T> CompletableFuture<T> measureAsync(CommandStage stage,
+      Supplier<CompletableFuture<T>> action) {
+    long start = System.nanoTime();
+    return action.get()
+        .whenComplete((result, error) -> getStageHistogram(stage).recordSince(start));
+  }
+
   /**
    * Execute the command.
    *
@@ -89,6 +152,24 @@ public abstract class Command {
   public abstract CommandResult execute(MessageChannel channel, Message message,
       String[] arguments);
 
+  /**
+   * Executes the command asynchronously.
+   *
+   * <p>Commands waiting on slow lookups should override this and compose the futures of the
+   * {@link JavadocFetcher#async() asynchronous fetcher}, so the command thread is not blocked
+   * while waiting. The lookups themselves still block a thread of that fetcher. The default just
+   * calls {@link #execute(MessageChannel, Message, String[])}.
+   *
+   * @param channel The {@link MessageChannel} the event occurred in
+   * @param message The {@link Message} that triggered the command.
+   * @param arguments The arguments passed to the command
+   * @return A future completed with the result of executing the command
+   */
+  public CompletableFuture<CommandResult> executeAsync(MessageChannel channel, Message message,
+      String[] arguments) {
+    return CompletableFuture.completedFuture(execute(channel, message, arguments));
+  }
+
   /**
    * Checks if a user can use a special kind of commands.
    *
@@ -110,7 +191,96 @@ public abstract class Command {
    */
   protected Optional<JavadocClass> getSingleClassAndSendError(String className,
       MessageChannel channel) {
-    List<JavadocClass> javadocClasses = getJavadocFetcher().getClassesEndingIn(className);
+    return lookUpInSingleClassAndSendError(className, channel, javadocClass -> null)
+        .map(ClassLookup::getJavadocClass);
+  }
+
+  /**
+   * Tries to find a single class ending with the given class name and then looks up something in
+   * it. Both lookups are recorded as one {@link CommandStage#LOOKUP}.
+   *
+   * <p>If a source that is still indexed in the background has a matching class too, the answer
+   * might be incomplete. Nothing is looked up then and all matches are linked instead.
+   *
+   * @param className The name of the class
+   * @param channel The {@link MessageChannel} to send the error messages to
+   * @param lookup The lookup to perform in the class, if exactly one was found
+   * @param <T> The type of the result of the lookup
+   * @return The class and the result of the lookup, if found. Empty optional if an error
+   *     occurred.
+   * @see #getSingleClassAndSendError(String, MessageChannel)
+   */
+  protected <T> Optional<ClassLookup<T>> lookUpInSingleClassAndSendError(String className,
+      MessageChannel channel, Function<JavadocClass, T> lookup) {
+    ClassLookup<T> result = measure(CommandStage.LOOKUP, () -> {
+      List<JavadocClass> javadocClasses = getJavadocFetcher().getClassesEndingIn(className);
+      List<ClassEntry> warmingClasses = getJavadocFetcher().getWarmingClassesEndingIn(
+          className, MAX_SUGGESTIONS
+      );
+      if (javadocClasses.size() != 1 || !warmingClasses.isEmpty()) {
+        return new ClassLookup<>(javadocClasses, warmingClasses, null);
+      }
+      return new ClassLookup<>(
+          javadocClasses, warmingClasses, lookup.apply(javadocClasses.get(0))
+      );
+    });
+
+    return selectSingleClassOrSendError(result, className, channel)
+        .map(ignored -> result);
+  }
+
+  /**
+   * Tries to find a single class ending with the given class name and then looks up something in
+   * it, without blocking. Both lookups are recorded as one {@link CommandStage#LOOKUP}.
+   *
+   * @param className The name of the class
+   * @param channel The {@link MessageChannel} to send the error messages to
+   * @param lookup Starts the lookup to perform in the class, if exactly one was found
+   * @param <T> The type of the result of the lookup
+   * @return A future completed with the class and the result of the lookup, if found. Empty
+   *     optional if an error occurred.
+   * @see #lookUpInSingleClassAndSendError(String, MessageChannel, Function)
+   */
+  protected <T> CompletableFuture<Optional<ClassLookup<T>>> lookUpInSingleClassAndSendErrorAsync(
+      String className, MessageChannel channel,
+      Function<JavadocClass, CompletableFuture<T>> lookup) {
+    CompletableFuture<ClassLookup<T>> result = measureAsync(
+        CommandStage.LOOKUP,
+        () -> getJavadocFetcher().async().getClassesEndingIn(className)
+            .thenCompose(javadocClasses -> {
+              List<ClassEntry> warmingClasses = getJavadocFetcher().getWarmingClassesEndingIn(
+                  className, MAX_SUGGESTIONS
+              );
+              if (javadocClasses.size() != 1 || !warmingClasses.isEmpty()) {
+                return CompletableFuture.completedFuture(
+                    new ClassLookup<T>(javadocClasses, warmingClasses, null)
+                );
+              }
+              return lookup.apply(javadocClasses.get(0))
+                  .thenApply(value -> new ClassLookup<>(javadocClasses, warmingClasses, value));
+            })
+    );
+    return result.thenApply(lookupResult -> selectSingleClassOrSendError(
+        lookupResult, className, channel
+    ).map(ignored -> lookupResult));
+  }
+
+  /**
+   * Returns the only found class or sends an error if there are none or too many. If sources that
+   * are still indexed match as well, all matches are linked instead.
+   *
+   * @param lookup The result of the lookup
+   * @param className The name of the class
+   * @param channel The {@link MessageChannel} to send the error messages to
+   * @return The class, if it was the only one. Empty optional if an error occurred.
+   */
+  private Optional<JavadocClass> selectSingleClassOrSendError(ClassLookup<?> lookup,
+      String className, MessageChannel channel) {
+    List<JavadocClass> javadocClasses = lookup.javadocClasses;
+    if (!lookup.warmingClasses.isEmpty()) {
+      sendStillIndexing(channel, className, javadocClasses, lookup.warmingClasses);
+      return Optional.empty();
+    }
 
     if (javadocClasses.isEmpty()) {
       sendNoClassesFound(channel, className);
@@ -141,18 +311,14 @@ public abstract class Command {
         + "\nHere is a list:";
     String headerMessage = String.format(formatHeader, query);
 
-    MessageUtil.sendAndThen(
-        channel.sendMessage(headerMessage), MessageUtil.deleteMessageConsumer()
-    );
-
     String formatContent = "```\n%s\n```";
     String classNames = javadocClasses.stream()
-        .map(
-            javadocClass -> javadocClass.getParentPackage().getName() + "." + javadocClass.getName()
-        )
+        .map(StringUtil::getQualifiedName)
         .collect(Collectors.joining("\n"));
 
-    sendLargeQuickDeleteMessage(channel, classNames, formatContent);
+    sendPackedMessage(
+        channel, headerMessage, classNames, formatContent, MessageUtil.defaultDuration()
+    );
   }
 
   /**
@@ -170,20 +336,18 @@ public abstract class Command {
         + "\nHere is a list:";
     String headerMessage = String.format(formatHeader, query);
 
-    MessageUtil.sendAndThen(
-        channel.sendMessage(headerMessage), MessageUtil.deleteMessageConsumer()
-    );
-
     String formatContent = "```\n%s\n```";
     String classNames = javadocMethods.stream()
         .map(JavadocMethod::getNameWithParameters)
         .collect(Collectors.joining("\n"));
 
-    sendLargeQuickDeleteMessage(channel, classNames, formatContent);
+    sendPackedMessage(
+        channel, headerMessage, classNames, formatContent, MessageUtil.defaultDuration()
+    );
   }
 
   /**
-   * Sends a message that no classes were found.
+   * Sends a message that no classes were found, suggesting similarly named classes.
    *
    * @param channel The {@link MessageChannel} to send it in
    * @param query The query the user used
@@ -192,7 +356,41 @@ public abstract class Command {
     String format = "**Error:**\nDid not find a class for query `%s`";
     String message = String.format(format, query);
 
-    MessageUtil.sendAndThen(channel.sendMessage(message), MessageUtil.deleteMessageConsumer());
+    List<String> suggestions = getJavadocFetcher().getSimilarClassNames(query, MAX_SUGGESTIONS);
+    if (!suggestions.isEmpty()) {
+      message += suggestions.stream()
+          .collect(Collectors.joining("`, `", "\n*Did you mean:* `", "`?"));
+    }
+
+    sendAndThen(
+        channel, channel.sendMessage(message), MessageUtil.deleteMessageConsumer()
+    );
+  }
+
+  /**
+   * Sends links to the matching classes while a source is still being indexed after a restart.
+   *
+   * @param channel The {@link MessageChannel} to send it in
+   * @param query The query the user used
+   * @param indexedClasses The matching classes from the indexed sources
+   * @param warmingClasses The matching classes from the snapshots of the sources still indexing
+   */
+  private void sendStillIndexing(MessageChannel channel, String query,
+      List<JavadocClass> indexedClasses, List<ClassEntry> warmingClasses) {
+    String format = "*Still indexing, `%s` can only be linked for now:*";
+    String indexedLinks = indexedClasses.stream()
+        .limit(MAX_SUGGESTIONS)
+        .map(javadocClass -> "\n`" + StringUtil.getQualifiedName(javadocClass) + "`: <"
+            + javadocClass.getUrl() + ">")
+        .collect(Collectors.joining());
+    String warmingLinks = warmingClasses.stream()
+        .map(entry -> "\n`" + entry.getQualifiedName() + "`: <" + entry.getUrl() + ">")
+        .collect(Collectors.joining());
+    String message = String.format(format, query) + indexedLinks + warmingLinks;
+
+    sendAndThen(
+        channel, channel.sendMessage(message), MessageUtil.deleteMessageConsumer()
+    );
   }
 
   /**
@@ -205,45 +403,57 @@ public abstract class Command {
     String format = "**Error:**\nDid not find a method for query `%s`";
     String message = String.format(format, query);
 
-    MessageUtil.sendAndThen(channel.sendMessage(message), MessageUtil.deleteMessageConsumer());
+    sendAndThen(
+        channel, channel.sendMessage(message), MessageUtil.deleteMessageConsumer()
+    );
   }
 
 
   /**
-   * Sends a large message. Split by `\n` if possible.
+   * Sends a message like {@link MessageUtil#sendAndThen(Duration, MessageChannel, RestAction,
+   * Consumer)} and records its send latency as the {@link CommandStage#SEND} of this command.
    *
-   * <em>Will use {@link MessageUtil#defaultDuration()}.</em>
+   * @param delay The {@link Duration} to wait
+   * @param channel The {@link MessageChannel} the message is sent in
+   * @param messageSendAction The {@link RestAction} that sends the {@link Message}
+   * @param action The action to perform on the sent {@link Message}
+   */
+  protected void sendAndThen(Duration delay, MessageChannel channel,
+      RestAction<Message> messageSendAction, Consumer<Message> action) {
+    MessageUtil.sendAndThen(
+        delay, channel, messageSendAction, action, getStageHistogram(CommandStage.SEND)
+    );
+  }
+
+  /**
+   * Sends a message with the {@link MessageUtil#defaultDuration()} delay and records its send
+   * latency as the {@link CommandStage#SEND} of this command.
    *
-   * @param channel The {@link MessageChannel} to send it in
-   * @param content The content to break up in chunks. It may be large.
-   * @param format The format to apply. The first and only replacement will be the split up
-   * content.
-   * @see #sendLargeMessage(MessageChannel, String, String, Duration)
+   * @param channel The {@link MessageChannel} the message is sent in
+   * @param messageSendAction The {@link RestAction} that sends the {@link Message}
+   * @param action The action to perform on the sent {@link Message}
+   * @see #sendAndThen(Duration, MessageChannel, RestAction, Consumer)
    */
-  protected void sendLargeQuickDeleteMessage(MessageChannel channel, String content,
-      String format) {
-    sendLargeMessage(channel, content, format, MessageUtil.defaultDuration());
+  protected void sendAndThen(MessageChannel channel, RestAction<Message> messageSendAction,
+      Consumer<Message> action) {
+    sendAndThen(MessageUtil.defaultDuration(), channel, messageSendAction, action);
   }
 
   /**
-   * Sends a large message. Split by `\n` if possible.
+   * Sends a large message packed into as few embeds as possible. Split by `\n` if possible.
    *
    * @param channel The {@link MessageChannel} to send it in
+   * @param header The header to show above the content. May be empty.
    * @param content The content to break up in chunks. It may be large.
-   * @param format The format to apply. The first and only replacement will be the split up
-   * content.
+   * @param format The format to apply to every chunk. The first and only replacement will be the
+   * chunk.
    * @param deleteTime The {@link Duration} until it is deleted
    */
-  protected void sendLargeMessage(MessageChannel channel, String content, String format,
-      Duration deleteTime) {
-    List<String> parts = MessageUtil.sliceMessage(
-        content, MAX_TEXT_LENGTH - format.length(), character -> character == '\n'
-    );
-    for (String messagePart : parts) {
-      String message = String.format(format, messagePart);
-
-      MessageUtil.sendAndThen(
-          deleteTime, channel.sendMessage(message), MessageUtil.deleteMessageConsumer()
+  protected void sendPackedMessage(MessageChannel channel, String header, String content,
+      String format, Duration deleteTime) {
+    for (MessageEmbed embed : EmbedPacker.pack(header, content, format)) {
+      sendAndThen(
+          deleteTime, channel, channel.sendMessage(embed), MessageUtil.deleteMessageConsumer()
       );
     }
   }
@@ -271,4 +481,38 @@ public abstract class Command {
   public enum CommandResult {
     SEND_USAGE, ACCEPTED
   }
+
+  /**
+   * The classes found for a query and the result of a lookup in the class, if it was the only
+   * one.
+   *
+   * @param <T> The type of the result of the lookup
+   */
+  protected static class ClassLookup<T> {
+
+    private final List<JavadocClass> javadocClasses;
+    private final List<ClassEntry> warmingClasses;
+    private final T result;
+
+    private ClassLookup(List<JavadocClass> javadocClasses, List<ClassEntry> warmingClasses,
+        T result) {
+      this.javadocClasses = javadocClasses;
+      this.warmingClasses = warmingClasses;
+      this.result = result;
+    }
+
+    /**
+     * @return The found class
+     */
+    public JavadocClass getJavadocClass() {
+      return javadocClasses.get(0);
+    }
+
+    /**
+     * @return The result of the lookup in the class
+     */
+    public T getResult() {
+      return result;
+    }
+  }
 }
@@ -1,14 +1,15 @@
 package me.ialistannen.javadocbotrewrite.simplecommands;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import me.ialistannen.javadocbotrewrite.metrics.LatencyHistogram;
+import me.ialistannen.javadocbotrewrite.metrics.Metrics;
 import me.ialistannen.javadocbotrewrite.simplecommands.Command.CommandResult;
 import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandGetBasePath;
 import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandHelp;
@@ -19,6 +20,13 @@ import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandPackage;
 import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandQuit;
 import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandSetBasePath;
 import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandSetBaseUrl;
+import me.ialistannen.javadocbotrewrite.simplecommands.commands.CommandStats;
+import me.ialistannen.javadocbotrewrite.simplecommands.execution.CommandExecutor;
+import me.ialistannen.javadocbotrewrite.simplecommands.execution.FairCommandExecutor;
+import me.ialistannen.javadocbotrewrite.simplecommands.execution.RateLimiter;
+import me.ialistannen.javadocbotrewrite.simplecommands.execution.RejectionPolicy;
+import me.ialistannen.javadocbotrewrite.simplecommands.querylog.QueryLog;
+import me.ialistannen.javadocbotrewrite.simplecommands.querylog.QueryRecord;
 import me.ialistannen.javadocbotrewrite.util.MessageUtil;
 import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.User;
@@ -33,18 +41,66 @@ public class CommandHandler extends ListenerAdapter {
 
   private static final Logger LOGGER = Logger.getLogger("CommandHandler");
 
-  private ExecutorService executorService = Executors.newCachedThreadPool();
+  private static final int DEFAULT_THREADS = 8;
+  private static final int DEFAULT_MAX_PENDING_PER_GUILD = 10;
+
+  private final CommandExecutor commandExecutor;
+  private final RejectionPolicy rejectionPolicy;
+  private final RateLimiter rateLimiter;
+  private final QueryLog queryLog;
+  private final LatencyHistogram executorWait = Metrics.getDefault().histogram(
+      "javadocbot_executor_wait_seconds", "The time commands waited for the executor"
+  );
 
   private List<Command> commands = new ArrayList<>();
+  private KeywordTrie<Command> keywords = new KeywordTrie<>();
   private String prefix;
 
   /**
-   * Adds all default {@link Command}s.
+   * Adds all default {@link Command}s and uses a {@link FairCommandExecutor}.
    *
    * @param prefix The prefix for commands.
+   * @see #CommandHandler(String, CommandExecutor, RejectionPolicy, RateLimiter)
    */
   public CommandHandler(String prefix) {
+    this(
+        prefix,
+        new FairCommandExecutor(DEFAULT_THREADS, DEFAULT_MAX_PENDING_PER_GUILD),
+        RejectionPolicy.NOTIFY,
+        RateLimiter.unlimited()
+    );
+  }
+
+  /**
+   * Adds all default {@link Command}s and does not log queries.
+   *
+   * @param prefix The prefix for commands.
+   * @param commandExecutor The {@link CommandExecutor} to run commands with
+   * @param rejectionPolicy What to do with commands the executor rejected
+   * @param rateLimiter The {@link RateLimiter} to check before running a command
+   * @see #CommandHandler(String, CommandExecutor, RejectionPolicy, RateLimiter, QueryLog)
+   */
+  public CommandHandler(String prefix, CommandExecutor commandExecutor,
+      RejectionPolicy rejectionPolicy, RateLimiter rateLimiter) {
+    this(prefix, commandExecutor, rejectionPolicy, rateLimiter, QueryLog.none());
+  }
+
+  /**
+   * Adds all default {@link Command}s.
+   *
+   * @param prefix The prefix for commands.
+   * @param commandExecutor The {@link CommandExecutor} to run commands with
+   * @param rejectionPolicy What to do with commands the executor rejected
+   * @param rateLimiter The {@link RateLimiter} to check before running a command
+   * @param queryLog The {@link QueryLog} to record every completed command in
+   */
+  public CommandHandler(String prefix, CommandExecutor commandExecutor,
+      RejectionPolicy rejectionPolicy, RateLimiter rateLimiter, QueryLog queryLog) {
     this.prefix = prefix;
+    this.commandExecutor = commandExecutor;
+    this.rejectionPolicy = rejectionPolicy;
+    this.rateLimiter = rateLimiter;
+    this.queryLog = queryLog;
 
     addCommand(new CommandJavadoc());
     addCommand(new CommandPackage());
@@ -55,6 +111,7 @@ public class CommandHandler extends ListenerAdapter {
     addCommand(new CommandSetBaseUrl());
     addCommand(new CommandSetBasePath());
     addCommand(new CommandGetBasePath());
+    addCommand(new CommandStats());
 
     addCommand(new CommandHelp());
     addCommand(new CommandQuit());
@@ -68,70 +125,179 @@ public class CommandHandler extends ListenerAdapter {
   private void addCommand(Command command) {
     if (!commands.contains(command)) {
       commands.add(command);
+      keywords.put(command.getKeyword(), command);
     }
   }
 
   @Override
   public void onMessageReceived(MessageReceivedEvent event) {
+    Message message = event.getMessage();
+
+    // reject everything that is no command before doing any real work
+    if (!message.getRawContent().startsWith(prefix)) {
+      return;
+    }
     if (isMe(event.getAuthor())) {
       return;
     }
 
-    Message message = event.getMessage();
     String content = message.getStrippedContent();
-    String[] parts = content.split(" ");
+    if (!content.startsWith(prefix)) {
+      return;
+    }
 
-    if (parts.length < 1) {
+    Command command = keywords.find(content, prefix.length());
+    if (command == null) {
       return;
     }
 
-    String keyword = parts[0].replace(prefix, "");
-    findCommand(keyword).ifPresent(command -> {
-      String[] arguments = subArray(1, parts);
+    if (!isWithinRateLimit(event, command)) {
+      LOGGER.fine("Rate limited " + event.getAuthor().getId() + " for " + command.getKeyword());
+      return;
+    }
 
-      event.getMessage().delete().queue();
+    MessageUtil.deleteMessage(event.getMessage());
 
-      LOGGER.info("Running command: " + command.getKeyword());
-      executorService.submit(andReportException(
-          () -> executeCommand(event, message, command, arguments)
-      ));
-    });
+    LOGGER.info("Running command: " + command.getKeyword());
+    int argumentStart = prefix.length() + command.getKeyword().length();
+    long receivedAt = System.currentTimeMillis();
+    long submittedNanos = System.nanoTime();
+    // the guild keeps its slot until the command completed, even if it finishes asynchronously
+    boolean accepted = commandExecutor.submitAsync(
+        getBulkheadKey(event),
+        () -> executeCommand(
+            event, message, command, content, argumentStart, receivedAt, submittedNanos
+        )
+    );
+
+    if (!accepted) {
+      handleRejection(event, command);
+    }
   }
 
   /**
-   * @param event The MessageReceivedEvent that caused it
-   * @param message The {@link Message} that caused it
-   * @param command The {@link Command} to execute
-   * @param arguments The {@link Command}'s arguments
+   * @param event The MessageReceivedEvent
+   * @param command The {@link Command} the event wants to run
+   * @return True if the user, channel and guild may run the command
+   */
+  private boolean isWithinRateLimit(MessageReceivedEvent event, Command command) {
+    return rateLimiter.tryAcquire(
+        command.getKeyword(),
+        event.getAuthor().getId(),
+        event.getChannel().getId(),
+        event.getGuild() == null ? null : event.getGuild().getId()
+    );
+  }
+
+  /**
+   * Commands are isolated per guild. Private messages are isolated per channel.
+   *
+   * @param event The MessageReceivedEvent
+   * @return The bulkhead key for the event
    */
-  private void executeCommand(MessageReceivedEvent event, Message message, Command command,
-      String[] arguments) {
+  private String getBulkheadKey(MessageReceivedEvent event) {
+    if (event.getGuild() != null) {
+      return "guild:" + event.getGuild().getId();
+    }
+    return "channel:" + event.getChannel().getId();
+  }
 
-    if (command.execute(event.getChannel(), message, arguments) == CommandResult.SEND_USAGE) {
-      String usageFormat = "*Command usage:* `%s`";
-      String usage = command.getUsage(prefix);
-      String usageMessage = String.format(usageFormat, usage);
+  /**
+   * @param event The MessageReceivedEvent whose command was rejected
+   * @param command The rejected {@link Command}
+   */
+  private void handleRejection(MessageReceivedEvent event, Command command) {
+    LOGGER.info("Rejected command: " + command.getKeyword() + " for " + getBulkheadKey(event));
 
+    if (rejectionPolicy == RejectionPolicy.NOTIFY) {
       MessageUtil.sendAndThen(
-          event.getTextChannel().sendMessage(usageMessage),
+          event.getChannel(),
+          event.getChannel().sendMessage("**Error:** *I am busy, please try again in a moment.*"),
           MessageUtil.deleteMessageConsumer()
       );
     }
   }
 
-  private boolean isMe(User user) {
-    return user.equals(user.getJDA().getSelfUser());
+  /**
+   * @param event The MessageReceivedEvent that caused it
+   * @param message The {@link Message} that caused it
+   * @param command The {@link Command} to execute
+   * @param content The content of the message
+   * @param argumentStart The index the arguments start at in the content
+   * @param receivedAt The time the command was received in epoch millis
+   * @param submittedNanos The {@link System#nanoTime()} the command was submitted at
+   * @return A future completed once the command is done
+   */
+  private CompletableFuture<CommandResult> executeCommand(MessageReceivedEvent event,
+      Message message, Command command, String content, int argumentStart, long receivedAt,
+      long submittedNanos) {
+
+    long startNanos = System.nanoTime();
+    String[] arguments = ArgumentTokenizer.tokenize(content, argumentStart);
+    long parsedNanos = System.nanoTime();
+
+    executorWait.record(startNanos - submittedNanos);
+    command.getStageHistogram(CommandStage.PARSE).record(parsedNanos - startNanos);
+
+    CompletableFuture<CommandResult> execution;
+    try {
+      execution = command.executeAsync(event.getChannel(), message, arguments);
+    } catch (RuntimeException e) {
+      // a command executing synchronously throws, but it should be recorded like any other
+      execution = new CompletableFuture<>();
+      execution.completeExceptionally(e);
+    }
+
+    return execution
+        .whenComplete((result, error) -> {
+          command.getStageHistogram(CommandStage.TOTAL).recordSince(startNanos);
+          queryLog.append(new QueryRecord(
+              receivedAt, command.getKeyword(), arguments,
+              startNanos - submittedNanos, parsedNanos - startNanos,
+              System.nanoTime() - parsedNanos,
+              error == null ? result.name() : "ERROR"
+          ));
+
+          if (error != null && isRejection(error)) {
+            handleRejection(event, command);
+            return;
+          }
+          if (error != null) {
+            LOGGER.log(Level.WARNING, "An exception was thrown executing a command.", error);
+            return;
+          }
+          if (result == CommandResult.SEND_USAGE) {
+            sendUsage(event, command);
+          }
+        });
   }
 
-  private Optional<Command> findCommand(String keyword) {
-    return commands.stream()
-        .filter(command -> command.getKeyword().equalsIgnoreCase(keyword))
-        .findFirst();
+  /**
+   * @param error The error a command completed with
+   * @return True if the command was rejected by a full queue, e.g. of the asynchronous fetcher
+   */
+  private boolean isRejection(Throwable error) {
+    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+    return cause instanceof RejectedExecutionException;
   }
 
-  @SuppressWarnings("SameParameterValue")
-  private <T> T[] subArray(int startPos, T[] array) {
-    return Arrays.copyOfRange(array, startPos, array.length);
+  /**
+   * @param event The MessageReceivedEvent that caused it
+   * @param command The {@link Command} to send the usage for
+   */
+  private void sendUsage(MessageReceivedEvent event, Command command) {
+    String usageFormat = "*Command usage:* `%s`";
+    String usage = command.getUsage(prefix);
+    String usageMessage = String.format(usageFormat, usage);
+
+    MessageUtil.sendAndThen(
+        event.getChannel(), event.getChannel().sendMessage(usageMessage),
+        MessageUtil.deleteMessageConsumer()
+    );
+  }
+
+  private boolean isMe(User user) {
+    return user.equals(user.getJDA().getSelfUser());
   }
 
   /**
@@ -142,25 +308,16 @@ public class CommandHandler extends ListenerAdapter {
   }
 
   /**
-   * @return The command prefix
+   * @return The {@link CommandExecutor} commands are run with
    */
-  public String getPrefix() {
-    return prefix;
+  public CommandExecutor getCommandExecutor() {
+    return commandExecutor;
   }
 
   /**
-   * Wraps a runnable in an exception logging one.
-   *
-   * @param r The runnable to run
-   * @return A runnable that handles exceptions
+   * @return The command prefix
    */
-  private Runnable andReportException(Runnable r) {
-    return () -> {
-      try {
-        r.run();
-      } catch (Throwable e) {
-        LOGGER.log(Level.WARNING, "An exception was thrown inside the executor.", e);
-      }
-    };
+  public String getPrefix() {
+    return prefix;
   }
 }
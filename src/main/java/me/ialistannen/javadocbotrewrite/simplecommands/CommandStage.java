@@ -0,0 +1,37 @@
+package me.ialistannen.javadocbotrewrite.simplecommands;
+
+import java.util.Locale;
+
+/**
+ * A stage of running a {@link Command}, measured separately.
+ */
+public enum CommandStage {
+  /**
+   * Tokenizing the arguments.
+   */
+  PARSE,
+  /**
+   * Looking up classes, methods or packages. Recorded once per command, even if it looks up a
+   * class and then something in it.
+   */
+  LOOKUP,
+  /**
+   * Turning the found javadoc into a message.
+   */
+  RENDER,
+  /**
+   * The time from queueing an answer until Discord accepted it. Recorded once per message.
+   */
+  SEND,
+  /**
+   * Everything from starting the command until it completed.
+   */
+  TOTAL;
+
+  /**
+   * @return The name used as metric label
+   */
+  public String getLabel() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,89 @@
+package me.ialistannen.javadocbotrewrite.simplecommands;
+
+/**
+ * A case insensitive trie mapping keywords to values, matched directly against a region of a
+ * {@link CharSequence}.
+ *
+ * <p>Lookups walk the input character by character and allocate nothing.
+ *
+ * @param <T> The type of the values
+ */
+class KeywordTrie<T> {
+
+  private final Node<T> root = new Node<>();
+
+  /**
+   * Adds a keyword.
+   *
+   * @param keyword The keyword. Case is ignored.
+   * @param value The value for it
+   */
+  void put(String keyword, T value) {
+    Node<T> node = root;
+    for (int i = 0; i < keyword.length(); i++) {
+      node = node.getOrCreateChild(Character.toLowerCase(keyword.charAt(i)));
+    }
+    node.value = value;
+  }
+
+  /**
+   * Finds the keyword starting at the given position. It must be followed by whitespace or the
+   * end of the input.
+   *
+   * @param input The input
+   * @param start The index the keyword starts at
+   * @return The value of the keyword or null if there is none
+   */
+  T find(CharSequence input, int start) {
+    Node<T> node = root;
+    int position = start;
+
+    while (position < input.length() && !Character.isWhitespace(input.charAt(position))) {
+      node = node.getChild(Character.toLowerCase(input.charAt(position)));
+      if (node == null) {
+        return null;
+      }
+      position++;
+    }
+
+    return node.value;
+  }
+
+  private static class Node<T> {
+
+    private char[] keys = new char[0];
+    @SuppressWarnings("unchecked")
+    private Node<T>[] children = new Node[0];
+    private T value;
+
+    private Node<T> getChild(char key) {
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] == key) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<T> getOrCreateChild(char key) {
+      Node<T> child = getChild(key);
+      if (child != null) {
+        return child;
+      }
+
+      char[] newKeys = new char[keys.length + 1];
+      Node<T>[] newChildren = new Node[children.length + 1];
+      System.arraycopy(keys, 0, newKeys, 0, keys.length);
+      System.arraycopy(children, 0, newChildren, 0, children.length);
+
+      child = new Node<>();
+      newKeys[keys.length] = key;
+      newChildren[children.length] = child;
+
+      keys = newKeys;
+      children = newChildren;
+      return child;
+    }
+  }
+}
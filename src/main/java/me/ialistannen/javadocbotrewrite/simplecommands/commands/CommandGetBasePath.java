@@ -21,7 +21,9 @@ public class CommandGetBasePath extends Command {
     String messageFormat = "*Base path:* `%s`";
     String msg = String.format(messageFormat, path);
 
-    MessageUtil.sendAndThen(channel.sendMessage(msg), MessageUtil.deleteMessageConsumer());
+    sendAndThen(
+        channel, channel.sendMessage(msg), MessageUtil.deleteMessageConsumer()
+    );
     return CommandResult.ACCEPTED;
   }
 }
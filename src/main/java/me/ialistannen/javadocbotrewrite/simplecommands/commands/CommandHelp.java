@@ -35,9 +35,9 @@ public class CommandHelp extends Command {
       embedBuilder.addField(command.getKeyword(), value, false);
     }
 
-    MessageUtil.sendAndThen(
+    sendAndThen(
         MessageUtil.defaultLongDuration(),
-        channel.sendMessage(embedBuilder.build()), MessageUtil.deleteMessageConsumer()
+        channel, channel.sendMessage(embedBuilder.build()), MessageUtil.deleteMessageConsumer()
     );
 
     return CommandResult.ACCEPTED;
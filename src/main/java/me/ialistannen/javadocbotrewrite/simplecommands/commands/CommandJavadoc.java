@@ -2,13 +2,17 @@ package me.ialistannen.javadocbotrewrite.simplecommands.commands;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
 import me.ialistannen.javadocbot.javadoc.model.JavadocMethod;
-import me.ialistannen.javadocbotrewrite.icons.IconCollection;
+import me.ialistannen.javadocbotrewrite.JavadocBot;
+import me.ialistannen.javadocbotrewrite.prefetch.HotSetTracker;
+import me.ialistannen.javadocbotrewrite.rendering.JavadocRenderer;
 import me.ialistannen.javadocbotrewrite.simplecommands.Command;
+import me.ialistannen.javadocbotrewrite.simplecommands.CommandStage;
+import me.ialistannen.javadocbotrewrite.util.JavadocFetcher;
 import me.ialistannen.javadocbotrewrite.util.MessageUtil;
 import me.ialistannen.javadocbotrewrite.util.StringUtil;
-import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.MessageChannel;
 import net.dv8tion.jda.core.entities.MessageEmbed;
@@ -18,8 +22,34 @@ import net.dv8tion.jda.core.entities.MessageEmbed;
  */
 public class CommandJavadoc extends Command {
 
+  private final JavadocRenderer renderer;
+  private final HotSetTracker hotSetTracker;
+
+  /**
+   * Creates the command with the default {@link JavadocFetcher}, {@link JavadocRenderer} and
+   * {@link HotSetTracker}.
+   */
   public CommandJavadoc() {
-    super("doc", "%sdoc <Class>[#method]", "Shows javadoc for a class or method");
+    this(
+        JavadocBot.getInstance().getJavadocFetcher(),
+        JavadocBot.getInstance().getJavadocRenderer(),
+        JavadocBot.getInstance().getHotSetTracker()
+    );
+  }
+
+  /**
+   * @param javadocFetcher The {@link JavadocFetcher} to use
+   * @param renderer The {@link JavadocRenderer} to render the javadoc with
+   * @param hotSetTracker The {@link HotSetTracker} to record the resolved queries in
+   */
+  public CommandJavadoc(JavadocFetcher javadocFetcher, JavadocRenderer renderer,
+      HotSetTracker hotSetTracker) {
+    super(
+        "doc", "%sdoc <Class>[#method]", "Shows javadoc for a class or method",
+        javadocFetcher
+    );
+    this.renderer = renderer;
+    this.hotSetTracker = hotSetTracker;
   }
 
   @Override
@@ -28,35 +58,84 @@ public class CommandJavadoc extends Command {
       return CommandResult.SEND_USAGE;
     }
 
-    String className = arguments[0];
-    if (className.contains("#")) {
-      className = className.substring(0, className.indexOf('#'));
-    }
+    String className = getClassName(arguments);
+    String methodSelector = getMethodSelector(arguments);
+    Optional<ClassLookup<List<JavadocMethod>>> lookup = lookUpInSingleClassAndSendError(
+        className, channel,
+        javadocClass -> methodSelector == null
+            ? null
+            : getJavadocFetcher().getMethodWithParams(javadocClass, methodSelector)
+    );
 
-    Optional<JavadocClass> classOptional = getSingleClassAndSendError(className, channel);
+    lookup.ifPresent(result -> sendJavadoc(channel, className, methodSelector, result));
+    return CommandResult.ACCEPTED;
+  }
 
-    if (!classOptional.isPresent()) {
-      return CommandResult.ACCEPTED;
+  @Override
+  public CompletableFuture<CommandResult> executeAsync(MessageChannel channel, Message message,
+      String[] arguments) {
+    if (arguments.length < 1) {
+      return CompletableFuture.completedFuture(CommandResult.SEND_USAGE);
     }
 
-    JavadocClass javadocClass = classOptional.get();
+    String className = getClassName(arguments);
+    String methodSelector = getMethodSelector(arguments);
+    return lookUpInSingleClassAndSendErrorAsync(
+        className, channel,
+        javadocClass -> methodSelector == null
+            ? CompletableFuture.<List<JavadocMethod>>completedFuture(null)
+            : getJavadocFetcher().async().getMethodWithParams(javadocClass, methodSelector)
+    ).thenApply(lookup -> {
+      lookup.ifPresent(result -> sendJavadoc(channel, className, methodSelector, result));
+      return CommandResult.ACCEPTED;
+    });
+  }
 
-    if (arguments[0].contains("#")) {
-      String joinedArgs = String.join(" ", arguments);
-      String methodSelector = joinedArgs.substring(joinedArgs.indexOf("#") + 1);
-      sendJavadocMethod(channel, javadocClass, methodSelector);
+  /**
+   * Sends the javadoc of the found class or method.
+   *
+   * @param channel The {@link MessageChannel} to send it in
+   * @param className The class name as the user typed it
+   * @param methodSelector The method part of the query or null if it queries a class
+   * @param lookup The found class and its methods matching the selector
+   */
+  private void sendJavadoc(MessageChannel channel, String className, String methodSelector,
+      ClassLookup<List<JavadocMethod>> lookup) {
+    if (methodSelector == null) {
+      sendJavadocClass(channel, className, lookup.getJavadocClass());
     } else {
-      sendJavadocClass(channel, javadocClass);
+      sendJavadocMethod(
+          channel, className, lookup.getJavadocClass(), lookup.getResult(), methodSelector
+      );
     }
+  }
 
-    return CommandResult.ACCEPTED;
+  /**
+   * @param arguments The arguments of the command
+   * @return The class part of the query
+   */
+  private String getClassName(String[] arguments) {
+    String className = arguments[0];
+    if (className.contains("#")) {
+      className = className.substring(0, className.indexOf('#'));
+    }
+    return className;
   }
 
-  private void sendJavadocMethod(MessageChannel channel, JavadocClass javadocClass,
-      String methodSelector) {
+  /**
+   * @param arguments The arguments of the command
+   * @return The method part of the query or null if it queries a class
+   */
+  private String getMethodSelector(String[] arguments) {
+    if (!arguments[0].contains("#")) {
+      return null;
+    }
+    String joinedArgs = String.join(" ", arguments);
+    return joinedArgs.substring(joinedArgs.indexOf("#") + 1);
+  }
 
-    List<JavadocMethod> methods = getJavadocFetcher()
-        .getMethodWithParams(javadocClass, methodSelector);
+  private void sendJavadocMethod(MessageChannel channel, String className,
+      JavadocClass javadocClass, List<JavadocMethod> methods, String methodSelector) {
 
     if (methods.isEmpty()) {
       sendNoMethodsFound(channel, methodSelector);
@@ -69,82 +148,29 @@ public class CommandJavadoc extends Command {
     }
 
     JavadocMethod method = methods.get(0);
+    hotSetTracker.record(
+        method.getUrl(), className, StringUtil.getQualifiedName(javadocClass), methodSelector
+    );
+    MessageEmbed embed = measure(CommandStage.RENDER, () -> renderer.renderMethod(method));
 
-    String description = method.getDescription();
-    description = StringUtil.changeCodeBlockLanguage(description);
-
-    description = StringUtil.truncateToSize(MessageEmbed.TEXT_MAX_LENGTH, description);
-
-    EmbedBuilder embedBuilder = new EmbedBuilder()
-        .setAuthor(
-            StringUtil.stripFormatting(method.getDeclaration()),
-            method.getUrl(),
-            getMethodIcon(method)
-        )
-        .setDescription(description);
-
-    MessageUtil.sendAndThen(
+    sendAndThen(
         MessageUtil.defaultLongDuration(),
-        channel.sendMessage(embedBuilder.build()),
+        channel, channel.sendMessage(embed),
         MessageUtil.nopConsumer()
     );
   }
 
-  private String getMethodIcon(JavadocMethod method) {
-    String declaration = StringUtil.sanitizeSpaces(method.getDeclaration());
-    if (declaration.contains("abstract ")) {
-      return IconCollection.METHOD_ABSTRACT.getUrl();
-    }
-    return IconCollection.METHOD.getUrl();
-  }
-
-  private void sendJavadocClass(MessageChannel channel, JavadocClass javadocClass) {
-    String description = javadocClass.getDescription();
-
-    String headerFormat = "```java\n%s\n```\n";
-    String superclasses = StringUtil.stripFormatting(
-        javadocClass.getType() + " " + javadocClass.getExtendsImplements()
+  private void sendJavadocClass(MessageChannel channel, String className,
+      JavadocClass javadocClass) {
+    hotSetTracker.record(
+        javadocClass.getUrl(), className, StringUtil.getQualifiedName(javadocClass), null
     );
-    String header = String.format(headerFormat, superclasses);
+    MessageEmbed embed = measure(CommandStage.RENDER, () -> renderer.renderClass(javadocClass));
 
-    description = StringUtil.changeCodeBlockLanguage(description);
-
-    description = header + description;
-
-    description = StringUtil.truncateToSize(MessageEmbed.TEXT_MAX_LENGTH, description);
-
-    EmbedBuilder embedBuilder = new EmbedBuilder()
-        .setAuthor(
-            StringUtil.stripFormatting(javadocClass.getNameWithModifiers()),
-            javadocClass.getUrl(),
-            getClassIcon(javadocClass)
-        )
-        .setDescription(description);
-
-    MessageUtil.sendAndThen(
+    sendAndThen(
         MessageUtil.defaultLongDuration(),
-        channel.sendMessage(embedBuilder.build()),
+        channel, channel.sendMessage(embed),
         MessageUtil.nopConsumer()
     );
   }
-
-  private String getClassIcon(JavadocClass javadocClass) {
-    String nameWithModifiers = StringUtil.sanitizeSpaces(javadocClass.getNameWithModifiers());
-    if (nameWithModifiers.contains("interface ")) {
-      return IconCollection.INTERFACE.getUrl();
-    }
-    if (nameWithModifiers.contains("abstract ")) {
-      return IconCollection.CLASS_ABSTRACT.getUrl();
-    }
-    if (nameWithModifiers.contains("final ")) {
-      return IconCollection.CLASS_FINAL.getUrl();
-    }
-    if (nameWithModifiers.contains("enum ")) {
-      return IconCollection.CLASS_ENUM.getUrl();
-    }
-    if (nameWithModifiers.contains("annotation ")) {
-      return IconCollection.CLASS_ANNOTATION.getUrl();
-    }
-    return IconCollection.CLASS.getUrl();
-  }
 }
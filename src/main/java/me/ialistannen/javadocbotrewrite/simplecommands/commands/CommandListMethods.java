@@ -1,14 +1,16 @@
 package me.ialistannen.javadocbotrewrite.simplecommands.commands;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
-import java.util.stream.Collector;
-import java.util.stream.Collectors;
-import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
 import me.ialistannen.javadocbot.javadoc.model.JavadocMethod;
+import me.ialistannen.javadocbotrewrite.JavadocBot;
 import me.ialistannen.javadocbotrewrite.simplecommands.Command;
+import me.ialistannen.javadocbotrewrite.simplecommands.CommandStage;
+import me.ialistannen.javadocbotrewrite.util.JavadocFetcher;
 import me.ialistannen.javadocbotrewrite.util.MessageUtil;
 import me.ialistannen.javadocbotrewrite.util.StringUtil;
 import net.dv8tion.jda.core.entities.Message;
@@ -20,11 +22,22 @@ import net.dv8tion.jda.core.entities.MessageChannel;
 public class CommandListMethods extends Command {
 
 
+  /**
+   * Creates the command with the default {@link JavadocFetcher}.
+   */
   public CommandListMethods() {
+    this(JavadocBot.getInstance().getJavadocFetcher());
+  }
+
+  /**
+   * @param javadocFetcher The {@link JavadocFetcher} to use
+   */
+  public CommandListMethods(JavadocFetcher javadocFetcher) {
     super(
         "listMethods",
         "%slistMethods <class>",
-        "Lists all methods of a class."
+        "Lists all methods of a class.",
+        javadocFetcher
     );
   }
 
@@ -36,51 +49,60 @@ public class CommandListMethods extends Command {
 
     String className = arguments[0];
 
-    Optional<JavadocClass> classOptional = getSingleClassAndSendError(className, channel);
+    Optional<ClassLookup<List<JavadocMethod>>> lookup = lookUpInSingleClassAndSendError(
+        className, channel, getJavadocFetcher()::getAllMethods
+    );
 
-    if (!classOptional.isPresent()) {
+    if (!lookup.isPresent()) {
       return CommandResult.ACCEPTED;
     }
 
-    List<JavadocMethod> allMethods = getJavadocFetcher().getAllMethods(classOptional.get());
-    String methodsAsString = allMethods.stream()
-        .map(methodToStringFunction(allMethods))
-        .sorted()
-        .collect(methodCollector());
+    List<JavadocMethod> allMethods = lookup.get().getResult();
+    String methodsAsString = measure(CommandStage.RENDER, () -> formatMethods(
+        allMethods,
+        method -> StringUtil.stripFormatting(method.getReturnValue()),
+        JavadocMethod::getNameWithParameters
+    ));
 
-    String format = "**Methods:**"
-        + "\n```\n%s\n```";
-
-    sendLargeMessage(channel, methodsAsString, format, MessageUtil.defaultLongDuration());
+    sendPackedMessage(
+        channel, "**Methods:**", methodsAsString, "```\n%s\n```",
+        MessageUtil.defaultLongDuration()
+    );
 
     return CommandResult.ACCEPTED;
   }
 
 
-  private Function<JavadocMethod, String> methodToStringFunction(
-      Collection<JavadocMethod> methods) {
-    int maxLength = getMaxLengthOfReturnValues(methods);
+  /**
+   * Formats methods as a sorted list of {@code returnValue : nameWithParameters} lines, with the
+   * return values padded to the same length.
+   *
+   * @param methods The methods to format
+   * @param returnValue Returns the return value of a method, without formatting
+   * @param nameWithParameters Returns the name and parameters of a method
+   * @param <T> The type of the methods
+   * @return The formatted methods, one per line
+   */
+  public static <T> String formatMethods(Collection<T> methods, Function<T, String> returnValue,
+      Function<T, String> nameWithParameters) {
+
+    List<T> methodList = new ArrayList<>(methods);
+    String[] returnValues = new String[methodList.size()];
+    int maxLength = 1;
+    for (int i = 0; i < returnValues.length; i++) {
+      returnValues[i] = returnValue.apply(methodList.get(i));
+      maxLength = Math.max(maxLength, returnValues[i].length());
+    }
 
     String format = "%-" + maxLength + "s : %s";
 
-    return method -> String.format(
-        format,
-        StringUtil.stripFormatting(method.getReturnValue()),
-        method.getNameWithParameters()
-    );
-  }
-
-
-  private int getMaxLengthOfReturnValues(Collection<JavadocMethod> methods) {
-    return methods.stream()
-        .map(JavadocMethod::getReturnValue)
-        .map(StringUtil::stripFormatting)
-        .mapToInt(String::length)
-        .max()
-        .orElse(1);
-  }
+    List<String> lines = new ArrayList<>(returnValues.length);
+    for (int i = 0; i < returnValues.length; i++) {
+      String name = nameWithParameters.apply(methodList.get(i));
+      lines.add(String.format(format, returnValues[i], name));
+    }
+    Collections.sort(lines);
 
-  private Collector<? super String, ?, String> methodCollector() {
-    return Collectors.joining("\n");
+    return String.join("\n", lines);
   }
 }
@@ -4,7 +4,10 @@ import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import me.ialistannen.javadocbot.javadoc.model.Package;
+import me.ialistannen.javadocbotrewrite.JavadocBot;
 import me.ialistannen.javadocbotrewrite.simplecommands.Command;
+import me.ialistannen.javadocbotrewrite.simplecommands.CommandStage;
+import me.ialistannen.javadocbotrewrite.util.JavadocFetcher;
 import me.ialistannen.javadocbotrewrite.util.MessageUtil;
 import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.MessageChannel;
@@ -14,25 +17,37 @@ import net.dv8tion.jda.core.entities.MessageChannel;
  */
 public class CommandListPackages extends Command {
 
+  /**
+   * Creates the command with the default {@link JavadocFetcher}.
+   */
   public CommandListPackages() {
-    super("listPackages", "%slistPackages", "Lists all packages.");
+    this(JavadocBot.getInstance().getJavadocFetcher());
+  }
+
+  /**
+   * @param javadocFetcher The {@link JavadocFetcher} to use
+   */
+  public CommandListPackages(JavadocFetcher javadocFetcher) {
+    super("listPackages", "%slistPackages", "Lists all packages.", javadocFetcher);
   }
 
   @Override
   public CommandResult execute(MessageChannel channel, Message message, String[] arguments) {
-    List<Package> packages = getJavadocFetcher().getAllPackages();
+    List<Package> packages = measure(
+        CommandStage.LOOKUP, () -> getJavadocFetcher().getAllPackages()
+    );
 
     String packageFormat = "__%s__:"
         + "\n  _%s_";
 
-    String packagesString = packages.stream()
+    String packagesString = measure(CommandStage.RENDER, () -> packages.stream()
         .map(getPackageToStringFunction(packageFormat))
-        .collect(Collectors.joining("\n"));
-
-    String messageFormat = "**Packages:**"
-        + "\n%s";
+        .collect(Collectors.joining("\n"))
+    );
 
-    sendLargeMessage(channel, packagesString, messageFormat, MessageUtil.defaultLongDuration());
+    sendPackedMessage(
+        channel, "**Packages:**", packagesString, "%s", MessageUtil.defaultLongDuration()
+    );
 
     return CommandResult.ACCEPTED;
   }
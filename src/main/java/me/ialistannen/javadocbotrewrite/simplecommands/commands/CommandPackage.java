@@ -2,11 +2,12 @@ package me.ialistannen.javadocbotrewrite.simplecommands.commands;
 
 import java.util.Optional;
 import me.ialistannen.javadocbot.javadoc.model.Package;
-import me.ialistannen.javadocbotrewrite.icons.IconCollection;
+import me.ialistannen.javadocbotrewrite.JavadocBot;
+import me.ialistannen.javadocbotrewrite.rendering.JavadocRenderer;
 import me.ialistannen.javadocbotrewrite.simplecommands.Command;
+import me.ialistannen.javadocbotrewrite.simplecommands.CommandStage;
+import me.ialistannen.javadocbotrewrite.util.JavadocFetcher;
 import me.ialistannen.javadocbotrewrite.util.MessageUtil;
-import me.ialistannen.javadocbotrewrite.util.StringUtil;
-import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.MessageChannel;
 import net.dv8tion.jda.core.entities.MessageEmbed;
@@ -16,12 +17,30 @@ import net.dv8tion.jda.core.entities.MessageEmbed;
  */
 public class CommandPackage extends Command {
 
+  private final JavadocRenderer renderer;
+
+  /**
+   * Creates the command with the default {@link JavadocFetcher} and {@link JavadocRenderer}.
+   */
   public CommandPackage() {
+    this(
+        JavadocBot.getInstance().getJavadocFetcher(),
+        JavadocBot.getInstance().getJavadocRenderer()
+    );
+  }
+
+  /**
+   * @param javadocFetcher The {@link JavadocFetcher} to use
+   * @param renderer The {@link JavadocRenderer} to render the package with
+   */
+  public CommandPackage(JavadocFetcher javadocFetcher, JavadocRenderer renderer) {
     super(
         "package",
         "%spackage <package name>",
-        "Shows information about a package."
+        "Shows information about a package.",
+        javadocFetcher
     );
+    this.renderer = renderer;
   }
 
   @Override
@@ -31,14 +50,18 @@ public class CommandPackage extends Command {
     }
     String packageName = arguments[0];
 
-    Optional<Package> packageOptional = getJavadocFetcher().getPackage(packageName);
+    Optional<Package> packageOptional = measure(
+        CommandStage.LOOKUP, () -> getJavadocFetcher().getPackage(packageName)
+    );
 
     if (!packageOptional.isPresent()) {
       String messageFormat = "**Error:**"
           + "\n*Did not find a package with the name* '%s'.";
       String msg = String.format(messageFormat, packageName);
 
-      MessageUtil.sendAndThen(channel.sendMessage(msg), MessageUtil.deleteMessageConsumer());
+      sendAndThen(
+          channel, channel.sendMessage(msg), MessageUtil.deleteMessageConsumer()
+      );
       return CommandResult.ACCEPTED;
     }
 
@@ -48,19 +71,12 @@ public class CommandPackage extends Command {
   }
 
   private void sendPackageJavadoc(MessageChannel channel, Package aPackage) {
-    String description = aPackage.getDescription();
-    description = StringUtil.changeCodeBlockLanguage(description);
-
-    description = StringUtil.truncateToSize(MessageEmbed.TEXT_MAX_LENGTH, description);
-
-    EmbedBuilder embedBuilder = new EmbedBuilder()
-        .setThumbnail(IconCollection.PACKAGE.getUrl())
-        .setAuthor(aPackage.getName(), aPackage.getUrl(), null)
-        .setDescription(description);
+    MessageEmbed embed = measure(CommandStage.RENDER, () -> renderer.renderPackage(aPackage));
 
-    MessageUtil.sendAndThen(
+    sendAndThen(
         MessageUtil.defaultLongDuration(),
-        channel.sendMessage(embedBuilder.build()),
+        channel,
+        channel.sendMessage(embed),
         MessageUtil.nopConsumer()
     );
   }
@@ -42,7 +42,9 @@ public class CommandSetBasePath extends Command {
           + "\nYour new path: `%s`";
       String msg = String.format(messageFormat, String.join(", ", pathUrls));
 
-      MessageUtil.sendAndThen(channel.sendMessage(msg), MessageUtil.deleteMessageConsumer());
+      sendAndThen(
+          channel, channel.sendMessage(msg), MessageUtil.deleteMessageConsumer()
+      );
       return CommandResult.ACCEPTED;
     }
 
@@ -52,7 +54,9 @@ public class CommandSetBasePath extends Command {
     String messageFormat = "*Set the base path to* `%s`.";
     String msg = String.format(messageFormat, path);
 
-    MessageUtil.sendAndThen(channel.sendMessage(msg), MessageUtil.deleteMessageConsumer());
+    sendAndThen(
+        channel, channel.sendMessage(msg), MessageUtil.deleteMessageConsumer()
+    );
     return CommandResult.ACCEPTED;
   }
 }
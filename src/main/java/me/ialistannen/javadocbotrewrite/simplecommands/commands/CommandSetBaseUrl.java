@@ -39,7 +39,9 @@ public class CommandSetBaseUrl extends Command {
 
       if (!hasPermission(PermissionLevel.ADMIN, (TextChannel) channel, member)) {
         String msg = "**Error:** *No permission!*";
-        MessageUtil.sendAndThen(channel.sendMessage(msg), MessageUtil.deleteMessageConsumer());
+        sendAndThen(
+            channel, channel.sendMessage(msg), MessageUtil.deleteMessageConsumer()
+        );
 
         return CommandResult.ACCEPTED;
       }
@@ -59,7 +61,9 @@ public class CommandSetBaseUrl extends Command {
           + "\nYour new url: `%s`";
       String msg = String.format(messageFormat, url);
 
-      MessageUtil.sendAndThen(channel.sendMessage(msg), MessageUtil.deleteMessageConsumer());
+      sendAndThen(
+          channel, channel.sendMessage(msg), MessageUtil.deleteMessageConsumer()
+      );
       return CommandResult.ACCEPTED;
     }
 
@@ -69,7 +73,9 @@ public class CommandSetBaseUrl extends Command {
     String messageFormat = "*Set the base url to:* `%s`";
     String msg = String.format(messageFormat, url);
 
-    MessageUtil.sendAndThen(channel.sendMessage(msg), MessageUtil.deleteMessageConsumer());
+    sendAndThen(
+        channel, channel.sendMessage(msg), MessageUtil.deleteMessageConsumer()
+    );
 
     return CommandResult.ACCEPTED;
   }
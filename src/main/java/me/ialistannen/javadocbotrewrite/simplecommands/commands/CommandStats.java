@@ -0,0 +1,86 @@
+package me.ialistannen.javadocbotrewrite.simplecommands.commands;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import me.ialistannen.javadocbotrewrite.metrics.LatencyHistogram;
+import me.ialistannen.javadocbotrewrite.metrics.Metrics;
+import me.ialistannen.javadocbotrewrite.simplecommands.Command;
+import me.ialistannen.javadocbotrewrite.simplecommands.permissions.PermissionProvider.PermissionLevel;
+import me.ialistannen.javadocbotrewrite.util.MessageUtil;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageChannel;
+
+/**
+ * Shows the {@link Metrics} of the bot. Admin only.
+ */
+public class CommandStats extends Command {
+
+  public CommandStats() {
+    super("stats", "%sstats", "Shows latencies, queues, caches and index sizes. Admin only.");
+  }
+
+  @Override
+  public CommandResult execute(MessageChannel channel, Message message, String[] arguments) {
+    if (!hasPermission(PermissionLevel.ADMIN, message.getTextChannel(), message.getMember())) {
+      return CommandResult.ACCEPTED;
+    }
+
+    StringBuilder stats = new StringBuilder();
+    for (Entry<String, Map<String, Object>> family : Metrics.getDefault().snapshot().entrySet()) {
+      StringBuilder lines = new StringBuilder();
+      for (Entry<String, Object> series : family.getValue().entrySet()) {
+        String value = format(series.getValue());
+        if (value != null) {
+          lines.append("\n  ").append(series.getKey().isEmpty() ? "-" : series.getKey())
+              .append("  ").append(value);
+        }
+      }
+
+      if (lines.length() > 0) {
+        if (stats.length() > 0) {
+          stats.append('\n');
+        }
+        stats.append(family.getKey()).append(lines);
+      }
+    }
+
+    sendPackedMessage(
+        channel, "**Stats:**", stats.toString(), "```\n%s\n```",
+        MessageUtil.defaultLongDuration()
+    );
+    return CommandResult.ACCEPTED;
+  }
+
+  /**
+   * @param value A {@link LatencyHistogram} or a number
+   * @return The formatted value or null if there is nothing to show
+   */
+  private static String format(Object value) {
+    if (value instanceof LatencyHistogram) {
+      LatencyHistogram histogram = (LatencyHistogram) value;
+      if (histogram.getCount() == 0) {
+        return null;
+      }
+      return String.format(
+          "n=%d p50=%s p99=%s",
+          histogram.getCount(),
+          formatSeconds(histogram.getPercentileSeconds(0.5)),
+          formatSeconds(histogram.getPercentileSeconds(0.99))
+      );
+    }
+
+    double number = (Double) value;
+    if (number == Math.rint(number)) {
+      return Long.toString((long) number);
+    }
+    return String.format(Locale.ROOT, "%.3f", number);
+  }
+
+  private static String formatSeconds(double seconds) {
+    if (Double.isInfinite(seconds)) {
+      return ">30s";
+    }
+    return String.format(Locale.ROOT, "<=%.1fms", seconds * 1000);
+  }
+}
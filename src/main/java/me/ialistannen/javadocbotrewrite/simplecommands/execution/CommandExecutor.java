@@ -0,0 +1,73 @@
+package me.ialistannen.javadocbotrewrite.simplecommands.execution;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Runs commands, isolating the callers from each other.
+ *
+ * <p>Tasks are grouped by a bulkhead key, for example the guild they came from. Every key may
+ * only have a limited amount of tasks pending, so a single busy key can not starve the others.
+ * A task is pending from its submission until the stage it returned completes, so work it hands
+ * off to other threads still counts against its key.
+ */
+public interface CommandExecutor {
+
+  /**
+   * Submits a task that finishes asynchronously.
+   *
+   * @param bulkheadKey The key of the group the task belongs to
+   * @param task The task to run. Returns a stage that completes once the task is done.
+   * @return False if the task was rejected, as the group has too many pending tasks
+   */
+  boolean submitAsync(String bulkheadKey, Supplier<? extends CompletionStage<?>> task);
+
+  /**
+   * Submits a task.
+   *
+   * @param bulkheadKey The key of the group the task belongs to
+   * @param task The task to run
+   * @return False if the task was rejected, as the group has too many pending tasks
+   */
+  default boolean submit(String bulkheadKey, Runnable task) {
+    return submitAsync(bulkheadKey, () -> {
+      task.run();
+      return CompletableFuture.completedFuture(null);
+    });
+  }
+
+  /**
+   * @return The amount of tasks that were submitted but not yet started
+   */
+  int getQueuedTaskCount();
+
+  /**
+   * Stops accepting tasks and interrupts the running ones.
+   */
+  void shutdown();
+
+  /**
+   * Creates an executor by its type.
+   *
+   * @param type The type. "virtual" for virtual threads if the JVM supports them, anything else
+   * for a {@link FairCommandExecutor}.
+   * @param threads The amount of threads, if the executor uses a fixed amount
+   * @param maxPendingPerKey The maximum amount of pending tasks per bulkhead key
+   * @return The created executor
+   */
+  static CommandExecutor create(String type, int threads, int maxPendingPerKey) {
+    if ("virtual".equalsIgnoreCase(type)) {
+      Optional<CommandExecutor> executor = VirtualThreadCommandExecutor.create(maxPendingPerKey);
+      if (executor.isPresent()) {
+        return executor.get();
+      }
+      Logger.getLogger("CommandExecutor").warning(
+          "Virtual threads are not supported by this JVM, falling back to a fixed pool"
+      );
+    }
+    return new FairCommandExecutor(threads, maxPendingPerKey);
+  }
+}
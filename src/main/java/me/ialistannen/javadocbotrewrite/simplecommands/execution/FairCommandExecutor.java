@@ -0,0 +1,197 @@
+package me.ialistannen.javadocbotrewrite.simplecommands.execution;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import me.ialistannen.javadocbotrewrite.util.DaemonThreadFactory;
+
+/**
+ * A {@link CommandExecutor} with a fixed amount of threads, serving the bulkheads round robin.
+ *
+ * <p>Every key has its own bounded queue. The workers take one task from a key and then move on
+ * to the next key with pending tasks, so a flood from one key only delays that key. The bound
+ * covers queued tasks as well as started tasks whose stage has not completed yet.
+ */
+public class FairCommandExecutor implements CommandExecutor {
+
+  private static final Logger LOGGER = Logger.getLogger("FairCommandExecutor");
+
+  private final int maxPendingPerKey;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition taskAvailable = lock.newCondition();
+  private final Map<String, Queue<PendingTask>> queues = new HashMap<>();
+  private final Map<String, Integer> pendingPerKey = new HashMap<>();
+  private final Queue<String> readyKeys = new ArrayDeque<>();
+  private final List<Thread> workers = new ArrayList<>();
+  private int queuedTasks;
+  private boolean shutdown;
+
+  /**
+   * @param threads The amount of worker threads
+   * @param maxPendingPerKey The maximum amount of pending tasks per key
+   */
+  public FairCommandExecutor(int threads, int maxPendingPerKey) {
+    this.maxPendingPerKey = maxPendingPerKey;
+
+    DaemonThreadFactory threadFactory = new DaemonThreadFactory("CommandWorker");
+    for (int i = 0; i < threads; i++) {
+      Thread worker = threadFactory.newThread(this::work);
+      workers.add(worker);
+      worker.start();
+    }
+  }
+
+  @Override
+  public boolean submitAsync(String bulkheadKey, Supplier<? extends CompletionStage<?>> task) {
+    lock.lock();
+    try {
+      if (shutdown) {
+        return false;
+      }
+      int pending = pendingPerKey.getOrDefault(bulkheadKey, 0);
+      if (pending >= maxPendingPerKey) {
+        return false;
+      }
+      pendingPerKey.put(bulkheadKey, pending + 1);
+
+      Queue<PendingTask> queue = queues.computeIfAbsent(bulkheadKey, key -> new ArrayDeque<>());
+      if (queue.isEmpty()) {
+        readyKeys.add(bulkheadKey);
+      }
+      queue.add(new PendingTask(bulkheadKey, task));
+      queuedTasks++;
+
+      taskAvailable.signal();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int getQueuedTaskCount() {
+    lock.lock();
+    try {
+      return queuedTasks;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    lock.lock();
+    try {
+      shutdown = true;
+      taskAvailable.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    workers.forEach(Thread::interrupt);
+  }
+
+  private void work() {
+    while (true) {
+      PendingTask task;
+      try {
+        task = takeNext();
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (task == null) {
+        return;
+      }
+
+      CompletionStage<?> stage;
+      try {
+        stage = task.action.get();
+      } catch (Throwable e) {
+        LOGGER.log(Level.WARNING, "A command task threw an exception.", e);
+        release(task.key);
+        continue;
+      }
+
+      if (stage == null) {
+        release(task.key);
+      } else {
+        stage.whenComplete((result, error) -> release(task.key));
+      }
+    }
+  }
+
+  /**
+   * Takes the next task, round robin over all keys.
+   *
+   * @return The next task or null if the executor was shut down
+   * @throws InterruptedException if the worker was interrupted while waiting
+   */
+  private PendingTask takeNext() throws InterruptedException {
+    lock.lock();
+    try {
+      while (readyKeys.isEmpty()) {
+        if (shutdown) {
+          return null;
+        }
+        taskAvailable.await();
+      }
+
+      String key = readyKeys.poll();
+      Queue<PendingTask> queue = queues.get(key);
+      PendingTask task = queue.poll();
+      queuedTasks--;
+
+      if (queue.isEmpty()) {
+        queues.remove(key);
+      } else {
+        readyKeys.add(key);
+      }
+
+      return task;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Frees the slot of a task whose stage completed.
+   *
+   * @param key The bulkhead key of the task
+   */
+  private void release(String key) {
+    lock.lock();
+    try {
+      int pending = pendingPerKey.get(key) - 1;
+      if (pending == 0) {
+        pendingPerKey.remove(key);
+      } else {
+        pendingPerKey.put(key, pending);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * A submitted task and its bulkhead key.
+   */
+  private static class PendingTask {
+
+    private final String key;
+    private final Supplier<? extends CompletionStage<?>> action;
+
+    private PendingTask(String key, Supplier<? extends CompletionStage<?>> action) {
+      this.key = key;
+      this.action = action;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package me.ialistannen.javadocbotrewrite.simplecommands.execution;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A limit of how many commands may be run in a given period.
+ */
+public class RateLimit {
+
+  private final int permits;
+  private final Duration period;
+
+  /**
+   * @param permits The amount of commands allowed per period
+   * @param period The period
+   */
+  public RateLimit(int permits, Duration period) {
+    if (permits <= 0) {
+      throw new IllegalArgumentException("Permits must be positive, got " + permits);
+    }
+    this.permits = permits;
+    this.period = period;
+  }
+
+  /**
+   * Parses a limit in the form {@code <permits>/<seconds>}, e.g. {@code 5/10}.
+   *
+   * @param input The input. May be null.
+   * @return The parsed limit or an empty optional if the input was null, empty or "none"
+   * @throws IllegalArgumentException if the input is malformed
+   */
+  public static Optional<RateLimit> parse(String input) {
+    if (input == null || input.trim().isEmpty() || input.trim().equalsIgnoreCase("none")) {
+      return Optional.empty();
+    }
+
+    String[] parts = input.trim().split("/");
+    if (parts.length != 2) {
+      throw new IllegalArgumentException("Expected <permits>/<seconds>, got '" + input + "'");
+    }
+
+    return Optional.of(new RateLimit(
+        Integer.parseInt(parts[0].trim()),
+        Duration.ofSeconds(Long.parseLong(parts[1].trim()))
+    ));
+  }
+
+  /**
+   * @return The amount of commands allowed per period
+   */
+  public int getPermits() {
+    return permits;
+  }
+
+  /**
+   * @return The period
+   */
+  public Duration getPeriod() {
+    return period;
+  }
+
+  @Override
+  public String toString() {
+    return permits + "/" + period.getSeconds() + "s";
+  }
+}
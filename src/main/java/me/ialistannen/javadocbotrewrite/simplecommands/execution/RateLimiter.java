@@ -0,0 +1,162 @@
+package me.ialistannen.javadocbotrewrite.simplecommands.execution;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import me.ialistannen.javadocbotrewrite.config.Config;
+import me.ialistannen.javadocbotrewrite.util.DaemonThreadFactory;
+
+/**
+ * Limits how often commands may be run per user, channel and guild.
+ *
+ * <p>The limits are read from the config as {@code rate_limit.<command>.<scope>}, falling back to
+ * {@code rate_limit.default.<scope>}. The scope is one of {@code user}, {@code channel} or
+ * {@code guild}, the value is in the form {@code <permits>/<seconds>} or {@code none}.
+ */
+public class RateLimiter {
+
+  private static final String CONFIG_PREFIX = "rate_limit.";
+
+  private final Config config;
+  private final Map<String, Optional<RateLimit>> limits = new ConcurrentHashMap<>();
+  private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService evictionExecutor = Executors
+      .newSingleThreadScheduledExecutor(new DaemonThreadFactory("RateLimitEviction"));
+
+  /**
+   * @param config The {@link Config} to read the limits from. Null to not limit anything.
+   * @throws IllegalArgumentException if a limit in the config is malformed
+   */
+  public RateLimiter(Config config) {
+    this.config = config;
+    validate(config);
+
+    evictionExecutor.scheduleWithFixedDelay(this::evictIdleBuckets, 1, 1, TimeUnit.MINUTES);
+  }
+
+  /**
+   * @return A {@link RateLimiter} allowing everything
+   */
+  public static RateLimiter unlimited() {
+    return new RateLimiter(null);
+  }
+
+  /**
+   * Checks all limits in the config, so a typo fails at startup instead of the first command.
+   *
+   * @param config The {@link Config}. May be null.
+   * @throws IllegalArgumentException if a limit is malformed or has an unknown scope
+   */
+  private static void validate(Config config) {
+    if (config == null) {
+      return;
+    }
+    for (String key : config.getKeys()) {
+      if (!key.startsWith(CONFIG_PREFIX)) {
+        continue;
+      }
+      String scope = key.substring(key.lastIndexOf('.') + 1);
+      if (Arrays.stream(Scope.values()).noneMatch(it -> it.getKey().equals(scope))) {
+        throw new IllegalArgumentException("Unknown rate limit scope in '" + key + "'");
+      }
+      try {
+        RateLimit.parse(config.getProperty(key));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Malformed rate limit '" + key + "'", e);
+      }
+    }
+  }
+
+  /**
+   * Checks whether a command may be run and takes a token from all matching buckets.
+   *
+   * <p>Either all buckets lose a token or none does: if a later scope rejects the command, the
+   * tokens taken from the earlier ones are given back.
+   *
+   * @param keyword The keyword of the command
+   * @param userId The id of the user
+   * @param channelId The id of the channel
+   * @param guildId The id of the guild. Null for private messages.
+   * @return True if the command may be run
+   */
+  public boolean tryAcquire(String keyword, String userId, String channelId, String guildId) {
+    TokenBucket userBucket = getBucket(keyword, Scope.USER, userId);
+    if (userBucket != null && !userBucket.tryTake()) {
+      return false;
+    }
+
+    TokenBucket channelBucket = getBucket(keyword, Scope.CHANNEL, channelId);
+    if (channelBucket != null && !channelBucket.tryTake()) {
+      giveBack(userBucket);
+      return false;
+    }
+
+    TokenBucket guildBucket = guildId == null ? null : getBucket(keyword, Scope.GUILD, guildId);
+    if (guildBucket != null && !guildBucket.tryTake()) {
+      giveBack(userBucket);
+      giveBack(channelBucket);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @param keyword The keyword of the command
+   * @param scope The {@link Scope}
+   * @param id The id of the user, channel or guild
+   * @return The bucket or null if the command is not limited in that scope
+   */
+  private TokenBucket getBucket(String keyword, Scope scope, String id) {
+    Optional<RateLimit> limit = getLimit(keyword, scope);
+    if (!limit.isPresent()) {
+      return null;
+    }
+
+    String bucketKey = scope.name() + ":" + id + ":" + keyword;
+    return buckets.computeIfAbsent(bucketKey, key -> new TokenBucket(limit.get()));
+  }
+
+  private static void giveBack(TokenBucket bucket) {
+    if (bucket != null) {
+      bucket.giveBack();
+    }
+  }
+
+  private Optional<RateLimit> getLimit(String keyword, Scope scope) {
+    if (config == null) {
+      return Optional.empty();
+    }
+    return limits.computeIfAbsent(keyword + "." + scope.getKey(), key -> {
+      String value = config.getProperty(CONFIG_PREFIX + key);
+      if (value == null) {
+        value = config.getProperty(CONFIG_PREFIX + "default." + scope.getKey());
+      }
+      return RateLimit.parse(value);
+    });
+  }
+
+  private void evictIdleBuckets() {
+    buckets.values().removeIf(TokenBucket::isIdle);
+  }
+
+  /**
+   * @return The amount of buckets currently tracked
+   */
+  public int getBucketCount() {
+    return buckets.size();
+  }
+
+  private enum Scope {
+    USER, CHANNEL, GUILD;
+
+    private String getKey() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package me.ialistannen.javadocbotrewrite.simplecommands.execution;
+
+/**
+ * What to do with a command the {@link CommandExecutor} rejected.
+ */
+public enum RejectionPolicy {
+  /**
+   * Silently drop the command.
+   */
+  DROP,
+  /**
+   * Tell the user that the bot is busy.
+   */
+  NOTIFY
+}
@@ -0,0 +1,60 @@
+package me.ialistannen.javadocbotrewrite.simplecommands.execution;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock free token bucket.
+ *
+ * <p>Instead of a token count it stores the time at which the bucket will be full again (the
+ * generic cell rate algorithm). Taking a token moves that time one interval into the future,
+ * which needs just a single compare-and-set.
+ */
+class TokenBucket {
+
+  private final long intervalNanos;
+  private final long burstNanos;
+  private final AtomicLong fullAt;
+
+  /**
+   * @param limit The {@link RateLimit} of the bucket
+   */
+  TokenBucket(RateLimit limit) {
+    this.intervalNanos = limit.getPeriod().toNanos() / limit.getPermits();
+    this.burstNanos = limit.getPeriod().toNanos();
+    this.fullAt = new AtomicLong(System.nanoTime());
+  }
+
+  /**
+   * Takes a token, if there is one.
+   *
+   * @return True if a token was taken
+   */
+  boolean tryTake() {
+    while (true) {
+      long now = System.nanoTime();
+      long current = fullAt.get();
+      long next = Math.max(current, now) + intervalNanos;
+
+      if (next - now > burstNanos) {
+        return false;
+      }
+      if (fullAt.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Returns a token taken by {@link #tryTake()}, e.g. because the command was rejected anyway.
+   */
+  void giveBack() {
+    fullAt.addAndGet(-intervalNanos);
+  }
+
+  /**
+   * @return True if the bucket is full, i.e. it was not used for a while
+   */
+  boolean isIdle() {
+    return fullAt.get() - System.nanoTime() <= 0;
+  }
+}
@@ -0,0 +1,111 @@
+package me.ialistannen.javadocbotrewrite.simplecommands.execution;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link CommandExecutor} running every task on its own virtual thread.
+ *
+ * <p>Virtual threads only exist on Java 21 and newer, so they are looked up reflectively. Every
+ * key may only have a limited amount of tasks in flight, until the stage they returned completed.
+ */
+public class VirtualThreadCommandExecutor implements CommandExecutor {
+
+  private static final Logger LOGGER = Logger.getLogger("VirtualThreadCommandExecutor");
+
+  private final ExecutorService executor;
+  private final int maxInFlightPerKey;
+  /**
+   * The amount of tasks in flight per key. Keys without tasks are removed. Guarded by this.
+   */
+  private final Map<String, Integer> inFlight = new HashMap<>();
+
+  private VirtualThreadCommandExecutor(ExecutorService executor, int maxInFlightPerKey) {
+    this.executor = executor;
+    this.maxInFlightPerKey = maxInFlightPerKey;
+  }
+
+  /**
+   * Creates the executor, if the JVM supports virtual threads.
+   *
+   * @param maxInFlightPerKey The maximum amount of running tasks per key
+   * @return The created executor or an empty optional if virtual threads are not supported
+   */
+  public static Optional<CommandExecutor> create(int maxInFlightPerKey) {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      ExecutorService executor = (ExecutorService) factory.invoke(null);
+      return Optional.of(new VirtualThreadCommandExecutor(executor, maxInFlightPerKey));
+    } catch (ReflectiveOperationException e) {
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public boolean submitAsync(String bulkheadKey, Supplier<? extends CompletionStage<?>> task) {
+    if (!tryAcquire(bulkheadKey)) {
+      return false;
+    }
+
+    try {
+      executor.execute(() -> {
+        CompletionStage<?> stage;
+        try {
+          stage = task.get();
+        } catch (Throwable e) {
+          LOGGER.log(Level.WARNING, "A command task threw an exception.", e);
+          release(bulkheadKey);
+          return;
+        }
+
+        if (stage == null) {
+          release(bulkheadKey);
+        } else {
+          stage.whenComplete((result, error) -> release(bulkheadKey));
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      release(bulkheadKey);
+      return false;
+    }
+  }
+
+  private synchronized boolean tryAcquire(String key) {
+    int count = inFlight.getOrDefault(key, 0);
+    if (count >= maxInFlightPerKey) {
+      return false;
+    }
+    inFlight.put(key, count + 1);
+    return true;
+  }
+
+  private synchronized void release(String key) {
+    int count = inFlight.get(key) - 1;
+    if (count == 0) {
+      inFlight.remove(key);
+    } else {
+      inFlight.put(key, count);
+    }
+  }
+
+  @Override
+  public int getQueuedTaskCount() {
+    // every task gets its own thread right away
+    return 0;
+  }
+
+  @Override
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
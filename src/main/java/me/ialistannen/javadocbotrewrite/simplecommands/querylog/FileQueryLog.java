@@ -0,0 +1,111 @@
+package me.ialistannen.javadocbotrewrite.simplecommands.querylog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import me.ialistannen.javadocbotrewrite.util.DaemonThreadFactory;
+
+/**
+ * A {@link QueryLog} appending to a file from a background thread.
+ *
+ * <p>Records are handed off through a bounded queue and written in batches. If the writer can not
+ * keep up, records are dropped instead of slowing down commands. On shutdown the writer is
+ * stopped and waited for, so the records it already took are written as well.
+ */
+class FileQueryLog implements QueryLog {
+
+  private static final Logger LOGGER = Logger.getLogger("FileQueryLog");
+
+  private static final int BATCH_SIZE = 256;
+  private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+  private final Path file;
+  private final BlockingQueue<QueryRecord> pending;
+  private final AtomicLong dropped = new AtomicLong();
+  private final Thread writer;
+  private volatile boolean stopped;
+
+  /**
+   * @param file The file to append to
+   * @param maxPending The maximum amount of records waiting to be written
+   */
+  FileQueryLog(Path file, int maxPending) {
+    this.file = file;
+    this.pending = new ArrayBlockingQueue<>(Math.max(1, maxPending));
+
+    this.writer = new DaemonThreadFactory("QueryLogWriter").newThread(this::writeLoop);
+    writer.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "QueryLogFlush"));
+  }
+
+  @Override
+  public void append(QueryRecord record) {
+    if (!pending.offer(record)) {
+      long droppedCount = dropped.incrementAndGet();
+      if (Long.bitCount(droppedCount) == 1) {
+        LOGGER.warning("Dropped " + droppedCount + " query log records, the writer is too slow");
+      }
+    }
+  }
+
+  private void writeLoop() {
+    while (!stopped) {
+      try {
+        QueryRecord first = pending.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+          continue;
+        }
+        List<QueryRecord> batch = new ArrayList<>(BATCH_SIZE);
+        batch.add(first);
+        pending.drainTo(batch, BATCH_SIZE - 1);
+        write(batch);
+      } catch (InterruptedException e) {
+        break;
+      }
+    }
+
+    List<QueryRecord> rest = new ArrayList<>();
+    pending.drainTo(rest);
+    write(rest);
+  }
+
+  /**
+   * Stops the writer after its current batch and waits until it wrote the remaining records.
+   * The writer is not interrupted, as that would close the file in the middle of a write.
+   */
+  private void stop() {
+    stopped = true;
+    try {
+      writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void write(List<QueryRecord> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try (BufferedWriter writer = Files.newBufferedWriter(
+        file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND
+    )) {
+      for (QueryRecord record : batch) {
+        writer.write(record.toLine());
+        writer.newLine();
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not write the query log to " + file, e);
+    }
+  }
+}
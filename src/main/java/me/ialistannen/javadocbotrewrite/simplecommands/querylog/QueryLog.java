@@ -0,0 +1,36 @@
+package me.ialistannen.javadocbotrewrite.simplecommands.querylog;
+
+import java.nio.file.Path;
+
+/**
+ * Records the commands that were run, so real traffic can be replayed offline.
+ */
+public interface QueryLog {
+
+  /**
+   * Appends a record. Must not block the caller for long.
+   *
+   * @param record The {@link QueryRecord} to append
+   */
+  void append(QueryRecord record);
+
+  /**
+   * @return A {@link QueryLog} discarding everything
+   */
+  static QueryLog none() {
+    return record -> {
+    };
+  }
+
+  /**
+   * Creates a log appending to a file.
+   *
+   * @param file The file to append to. Created if it does not exist.
+   * @param maxPending The maximum amount of records waiting to be written. Further ones are
+   * dropped.
+   * @return The created log
+   */
+  static QueryLog toFile(Path file, int maxPending) {
+    return new FileQueryLog(file, maxPending);
+  }
+}
@@ -0,0 +1,198 @@
+package me.ialistannen.javadocbotrewrite.simplecommands.querylog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single command in the {@link QueryLog}.
+ *
+ * <p>It contains no user, channel or guild ids. A record is written as one tab separated line:
+ * {@code <epoch millis> <keyword> <queue us> <parse us> <execute us> <result> <arguments...>}.
+ */
+public class QueryRecord {
+
+  private static final int MAX_ARGUMENT_LENGTH = 256;
+
+  private final long timestamp;
+  private final String keyword;
+  private final String[] arguments;
+  private final long queueNanos;
+  private final long parseNanos;
+  private final long executeNanos;
+  private final String result;
+
+  /**
+   * @param timestamp The time the command was received, in epoch millis
+   * @param keyword The keyword of the command
+   * @param arguments The arguments of the command
+   * @param queueNanos The time the command waited for the executor
+   * @param parseNanos The time it took to tokenize the arguments
+   * @param executeNanos The time from starting the command until it completed
+   * @param result The result of the command, e.g. "ACCEPTED" or "ERROR"
+   */
+  public QueryRecord(long timestamp, String keyword, String[] arguments, long queueNanos,
+      long parseNanos, long executeNanos, String result) {
+    this.timestamp = timestamp;
+    this.keyword = keyword;
+    this.arguments = arguments.clone();
+    this.queueNanos = queueNanos;
+    this.parseNanos = parseNanos;
+    this.executeNanos = executeNanos;
+    this.result = result;
+  }
+
+  /**
+   * @return The time the command was received, in epoch millis
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * @return The keyword of the command
+   */
+  public String getKeyword() {
+    return keyword;
+  }
+
+  /**
+   * @return The arguments of the command
+   */
+  public String[] getArguments() {
+    return arguments.clone();
+  }
+
+  /**
+   * @return The time the command waited for the executor in nanoseconds
+   */
+  public long getQueueNanos() {
+    return queueNanos;
+  }
+
+  /**
+   * @return The time it took to tokenize the arguments in nanoseconds
+   */
+  public long getParseNanos() {
+    return parseNanos;
+  }
+
+  /**
+   * @return The time from starting the command until it completed in nanoseconds
+   */
+  public long getExecuteNanos() {
+    return executeNanos;
+  }
+
+  /**
+   * @return The result of the command
+   */
+  public String getResult() {
+    return result;
+  }
+
+  /**
+   * @return The record as a single line, without a line break
+   */
+  public String toLine() {
+    StringBuilder line = new StringBuilder()
+        .append(timestamp).append('\t')
+        .append(escape(keyword)).append('\t')
+        .append(TimeUnit.NANOSECONDS.toMicros(queueNanos)).append('\t')
+        .append(TimeUnit.NANOSECONDS.toMicros(parseNanos)).append('\t')
+        .append(TimeUnit.NANOSECONDS.toMicros(executeNanos)).append('\t')
+        .append(result);
+
+    for (String argument : arguments) {
+      if (argument.length() > MAX_ARGUMENT_LENGTH) {
+        argument = argument.substring(0, MAX_ARGUMENT_LENGTH);
+      }
+      line.append('\t').append(escape(argument));
+    }
+    return line.toString();
+  }
+
+  /**
+   * Parses a line written by {@link #toLine()}.
+   *
+   * @param line The line
+   * @return The parsed record
+   * @throws IllegalArgumentException if the line is malformed
+   */
+  public static QueryRecord parse(String line) {
+    String[] parts = line.split("\t", -1);
+    if (parts.length < 6) {
+      throw new IllegalArgumentException("Malformed query log line: '" + line + "'");
+    }
+
+    List<String> arguments = new ArrayList<>();
+    for (String argument : Arrays.asList(parts).subList(6, parts.length)) {
+      arguments.add(unescape(argument));
+    }
+
+    try {
+      return new QueryRecord(
+          Long.parseLong(parts[0]),
+          unescape(parts[1]),
+          arguments.toArray(new String[0]),
+          TimeUnit.MICROSECONDS.toNanos(Long.parseLong(parts[2])),
+          TimeUnit.MICROSECONDS.toNanos(Long.parseLong(parts[3])),
+          TimeUnit.MICROSECONDS.toNanos(Long.parseLong(parts[4])),
+          parts[5]
+      );
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Malformed query log line: '" + line + "'", e);
+    }
+  }
+
+  private static String escape(String input) {
+    StringBuilder result = new StringBuilder(input.length());
+    for (int i = 0; i < input.length(); i++) {
+      char c = input.charAt(i);
+      switch (c) {
+        case '\\':
+          result.append("\\\\");
+          break;
+        case '\t':
+          result.append("\\t");
+          break;
+        case '\n':
+          result.append("\\n");
+          break;
+        case '\r':
+          result.append("\\r");
+          break;
+        default:
+          result.append(c);
+      }
+    }
+    return result.toString();
+  }
+
+  private static String unescape(String input) {
+    StringBuilder result = new StringBuilder(input.length());
+    for (int i = 0; i < input.length(); i++) {
+      char c = input.charAt(i);
+      if (c != '\\' || i + 1 >= input.length()) {
+        result.append(c);
+        continue;
+      }
+      char next = input.charAt(++i);
+      switch (next) {
+        case 't':
+          result.append('\t');
+          break;
+        case 'n':
+          result.append('\n');
+          break;
+        case 'r':
+          result.append('\r');
+          break;
+        default:
+          result.append(next);
+      }
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,189 @@
+package me.ialistannen.javadocbotrewrite.util;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
+import me.ialistannen.javadocbot.javadoc.model.JavadocMethod;
+import me.ialistannen.javadocbot.javadoc.model.Package;
+
+/**
+ * An asynchronous view of a {@link JavadocFetcher}.
+ *
+ * <p>This is only a thread hand-off: the library does blocking I/O, so every operation still
+ * occupies a thread of this pool until it is done. It just frees the calling thread. The pool has
+ * a bounded queue, and operations that do not fit complete exceptionally with a
+ * {@link RejectedExecutionException}.
+ *
+ * <p>Operations taking longer than the timeout complete exceptionally with a
+ * {@link TimeoutException}. Cancelling the returned future or hitting the timeout only completes
+ * the future: an operation that has not started yet is dropped, but a running one is left to
+ * finish, as interrupting the library could leave a half done crawl behind.
+ */
+public class AsyncJavadocFetcher {
+
+  private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+  private final JavadocFetcher fetcher;
+  private final ExecutorService executor;
+  private final ScheduledExecutorService timeoutScheduler;
+  private final Duration timeout;
+
+  /**
+   * @param fetcher The {@link JavadocFetcher} to delegate to
+   * @param threads The amount of threads to run operations on
+   * @param queueCapacity The maximum amount of operations waiting for a thread
+   */
+  AsyncJavadocFetcher(JavadocFetcher fetcher, int threads, int queueCapacity) {
+    this(
+        fetcher,
+        new ThreadPoolExecutor(
+            threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), new DaemonThreadFactory("AsyncFetcher")
+        ),
+        Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("AsyncFetcherTimeout")),
+        DEFAULT_TIMEOUT
+    );
+  }
+
+  private AsyncJavadocFetcher(JavadocFetcher fetcher, ExecutorService executor,
+      ScheduledExecutorService timeoutScheduler, Duration timeout) {
+    this.fetcher = fetcher;
+    this.executor = executor;
+    this.timeoutScheduler = timeoutScheduler;
+    this.timeout = timeout;
+  }
+
+  /**
+   * @param timeout The timeout for all operations
+   * @return A view sharing the threads of this one, but using the given timeout
+   */
+  public AsyncJavadocFetcher withTimeout(Duration timeout) {
+    return new AsyncJavadocFetcher(fetcher, executor, timeoutScheduler, timeout);
+  }
+
+  /**
+   * @param name the name of the class
+   * @return All classes ending in that name
+   * @see JavadocFetcher#getClassesEndingIn(String)
+   */
+  public CompletableFuture<List<JavadocClass>> getClassesEndingIn(String name) {
+    return supply(() -> fetcher.getClassesEndingIn(name));
+  }
+
+  /**
+   * @param javadocClass The {@link JavadocClass} to get them from
+   * @return All methods in the class
+   * @see JavadocFetcher#getAllMethods(JavadocClass)
+   */
+  public CompletableFuture<List<JavadocMethod>> getAllMethods(JavadocClass javadocClass) {
+    return supply(() -> fetcher.getAllMethods(javadocClass));
+  }
+
+  /**
+   * @param javadocClass The {@link JavadocClass} to get them from
+   * @param nameAndParams The name of the method. Can contain parameters in the `(paramClass)`
+   * notation
+   * @return All methods with that name and parameters
+   * @see JavadocFetcher#getMethodWithParams(JavadocClass, String)
+   */
+  public CompletableFuture<List<JavadocMethod>> getMethodWithParams(JavadocClass javadocClass,
+      String nameAndParams) {
+    return supply(() -> fetcher.getMethodWithParams(javadocClass, nameAndParams));
+  }
+
+  /**
+   * @param name The name of the package
+   * @return The package with that name, if any.
+   * @see JavadocFetcher#getPackage(String)
+   */
+  public CompletableFuture<Optional<Package>> getPackage(String name) {
+    return supply(() -> fetcher.getPackage(name));
+  }
+
+  /**
+   * @return All packages
+   * @see JavadocFetcher#getAllPackages()
+   */
+  public CompletableFuture<List<Package>> getAllPackages() {
+    return supply(fetcher::getAllPackages);
+  }
+
+  /**
+   * Sets the base path. This indexes all sources, so a large timeout is advisable.
+   *
+   * @param path The base path
+   * @return true if it was successfully set
+   * @see JavadocFetcher#setBasePath(Iterable)
+   */
+  public CompletableFuture<Boolean> setBasePath(Iterable<String> path) {
+    return supply(() -> fetcher.setBasePath(path));
+  }
+
+  /**
+   * Sets the base url. This indexes the source, so a large timeout is advisable.
+   *
+   * @param url The new base url
+   * @return true if the url was changed
+   * @see JavadocFetcher#setUrl(String)
+   */
+  public CompletableFuture<Boolean> setUrl(String url) {
+    return supply(() -> fetcher.setUrl(url));
+  }
+
+  /**
+   * Runs the supplier on the pool, honouring cancellation and the timeout.
+   *
+   * @param supplier The operation
+   * @param <T> The type of the result
+   * @return A future completed with the result of the operation or exceptionally with a
+   *     {@link RejectedExecutionException} if the queue is full
+   */
+  private <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+
+    Future<?> task;
+    try {
+      task = executor.submit(() -> {
+        try {
+          result.complete(supplier.get());
+        } catch (Throwable e) {
+          result.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+      return result;
+    }
+
+    ScheduledFuture<?> timeoutTask = timeoutScheduler.schedule(
+        () -> result.completeExceptionally(
+            new TimeoutException("The operation took longer than " + timeout)
+        ),
+        timeout.toMillis(), TimeUnit.MILLISECONDS
+    );
+
+    result.whenComplete((ignored, error) -> {
+      timeoutTask.cancel(false);
+      // never interrupt, a running lookup or crawl is left to finish
+      if (error instanceof CancellationException || error instanceof TimeoutException) {
+        task.cancel(false);
+      }
+    });
+
+    return result;
+  }
+}
@@ -0,0 +1,14 @@
+package me.ialistannen.javadocbotrewrite.util;
+
+/**
+ * A predicate on a primitive {@code char}, so testing characters does not box them.
+ */
+@FunctionalInterface
+public interface CharPredicate {
+
+  /**
+   * @param character The character to test
+   * @return True if the character matches
+   */
+  boolean test(char character);
+}
@@ -0,0 +1,27 @@
+package me.ialistannen.javadocbotrewrite.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ThreadFactory} creating numbered daemon threads.
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+
+  private final String name;
+  private final AtomicInteger counter = new AtomicInteger();
+
+  /**
+   * @param name The name of the threads. A counter is appended to it.
+   */
+  public DaemonThreadFactory(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public Thread newThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+}
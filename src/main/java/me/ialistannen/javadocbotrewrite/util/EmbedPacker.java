@@ -0,0 +1,81 @@
+package me.ialistannen.javadocbotrewrite.util;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import net.dv8tion.jda.core.EmbedBuilder;
+import net.dv8tion.jda.core.entities.MessageEmbed;
+
+/**
+ * Packs large text into as few {@link MessageEmbed}s as possible.
+ *
+ * <p>An embed holds a lot more text than a normal message: a description and a number of
+ * fields, each with its own limit. The text is broken at line ends where possible and every
+ * chunk is wrapped in a format, e.g. a code block.
+ */
+public class EmbedPacker {
+
+  private static final int MAX_DESCRIPTION_LENGTH = 2048;
+  private static final int MAX_FIELD_VALUE_LENGTH = 1024;
+  private static final int MAX_FIELDS = 25;
+  private static final int MAX_TOTAL_LENGTH = 6000;
+
+  /**
+   * Discord does not allow empty field names, so a zero width space is used.
+   */
+  private static final String BLANK_FIELD_NAME = "\u200B";
+  private static final CharPredicate IS_LINE_BREAK = character -> character == '\n';
+
+  /**
+   * Packs the content into embeds.
+   *
+   * @param header The header to put in front of the first chunk. May be empty.
+   * @param content The content to pack
+   * @param chunkFormat The format to apply to every chunk. The first and only replacement will
+   * be the chunk.
+   * @return The embeds, in order
+   */
+  public static List<MessageEmbed> pack(String header, String content, String chunkFormat) {
+    int formatOverhead = String.format(chunkFormat, "").length();
+    String prefix = header.isEmpty() ? "" : header + "\n";
+
+    List<MessageEmbed> embeds = new ArrayList<>();
+    int position = 0;
+
+    while (position < content.length() || embeds.isEmpty()) {
+      EmbedBuilder builder = new EmbedBuilder();
+
+      int descriptionCapacity = MAX_DESCRIPTION_LENGTH - formatOverhead - prefix.length();
+      int end = TextSlicer.findChunkEnd(content, position, descriptionCapacity, IS_LINE_BREAK);
+      String description = prefix
+          + String.format(chunkFormat, CharBuffer.wrap(content, position, end));
+      builder.setDescription(description);
+      prefix = "";
+      position = TextSlicer.skipTerminator(content, end, IS_LINE_BREAK);
+
+      int totalLength = description.length();
+      int fields = 0;
+      int fieldCapacity = MAX_FIELD_VALUE_LENGTH - formatOverhead;
+
+      while (position < content.length() && fields < MAX_FIELDS) {
+        int remainingTotal = MAX_TOTAL_LENGTH - totalLength - BLANK_FIELD_NAME.length();
+        int capacity = Math.min(fieldCapacity, remainingTotal - formatOverhead);
+        if (capacity <= 0) {
+          break;
+        }
+
+        end = TextSlicer.findChunkEnd(content, position, capacity, IS_LINE_BREAK);
+        String value = String.format(chunkFormat, CharBuffer.wrap(content, position, end));
+        builder.addField(BLANK_FIELD_NAME, value, false);
+
+        totalLength += BLANK_FIELD_NAME.length() + value.length();
+        fields++;
+        position = TextSlicer.skipTerminator(content, end, IS_LINE_BREAK);
+      }
+
+      embeds.add(builder.build());
+    }
+
+    return embeds;
+  }
+}
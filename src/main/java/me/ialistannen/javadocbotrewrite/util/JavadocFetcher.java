@@ -1,14 +1,24 @@
 package me.ialistannen.javadocbotrewrite.util;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -17,6 +27,17 @@ import me.ialistannen.javadocbot.javadoc.JavadocSettings;
 import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
 import me.ialistannen.javadocbot.javadoc.model.JavadocMethod;
 import me.ialistannen.javadocbot.javadoc.model.Package;
+import me.ialistannen.javadocbotrewrite.util.cache.LruCache;
+import me.ialistannen.javadocbotrewrite.util.cache.QueryKey;
+import me.ialistannen.javadocbotrewrite.util.cache.QueryKey.QueryType;
+import me.ialistannen.javadocbotrewrite.util.cache.SingleFlight;
+import me.ialistannen.javadocbotrewrite.util.index.FanOut;
+import me.ialistannen.javadocbotrewrite.util.index.IndexSnapshotStore;
+import me.ialistannen.javadocbotrewrite.util.index.ParallelIndexer;
+import me.ialistannen.javadocbotrewrite.util.index.SourceRefresher;
+import me.ialistannen.javadocbotrewrite.util.index.SourceSet;
+import me.ialistannen.javadocbotrewrite.util.index.SourceSnapshot;
+import me.ialistannen.javadocbotrewrite.util.index.SourceSnapshot.ClassEntry;
 
 /**
  * Fetches Javadoc.
@@ -25,37 +46,121 @@ public class JavadocFetcher {
 
   private static final Logger LOGGER = Logger.getLogger("JavadocFetcher");
 
-  private final List<JavadocManager> managers;
-  private AtomicReference<JavadocManager> swappingManager;
+  private static final int DEFAULT_INDEXING_THREADS = 4;
+  private static final int LOOKUP_THREADS = 8;
+  private static final int ASYNC_THREADS = 16;
+  private static final int ASYNC_QUEUE_CAPACITY = 256;
+  private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(10);
+  private static final long DEFAULT_METHOD_CACHE_BYTES = 32 * 1024 * 1024;
+  private static final int DEFAULT_QUERY_CACHE_ENTRIES = 10_000;
+  private static final Duration SIMILARITY_SEARCH_BUDGET = Duration.ofMillis(25);
+  private static final Duration WARM_UP_RETRY_DELAY = Duration.ofMinutes(1);
+
+  private final ParallelIndexer indexer;
+  private final FanOut fanOut = new FanOut(LOOKUP_THREADS);
+  private final IndexSnapshotStore snapshotStore;
+  /**
+   * All sources. Readers just read the reference, writers replace it in {@link #swapSources}.
+   */
+  private final AtomicReference<SourceSet> sources = new AtomicReference<>();
+  /**
+   * Caches the methods of a class by {@code generation|url} and methods with a given selector by
+   * {@code generation|url#selector}. The {@link SourceSet#getGeneration() generation} keeps a
+   * lookup that raced with a source swap from caching old methods for the new sources.
+   */
+  private final LruCache<String, List<JavadocMethod>> methodCache;
+  /**
+   * Memoizes query results. The keys contain the {@link SourceSet#getGeneration() generation},
+   * so entries for old sources are never hit again and just age out.
+   */
+  private final LruCache<QueryKey, Object> queryCache;
+  /**
+   * Lets concurrent identical lookups share a single computation on a cache miss.
+   */
+  private final SingleFlight<QueryKey, Object> queryFlight = new SingleFlight<>();
+  private final SingleFlight<String, List<JavadocMethod>> methodFlight = new SingleFlight<>();
+  private final AsyncJavadocFetcher async = new AsyncJavadocFetcher(
+      this, ASYNC_THREADS, ASYNC_QUEUE_CAPACITY
+  );
+  private final List<Runnable> sourceChangeListeners = new CopyOnWriteArrayList<>();
+  /**
+   * The snapshots of sources that were restored and are still indexed in the background, keyed by
+   * their base url.
+   */
+  private final Map<String, SourceSnapshot> warmingSources = new ConcurrentHashMap<>();
+  /**
+   * The time in epoch milliseconds the current index of every source was started at, keyed by
+   * its base url. Lets the {@link SourceRefresher} spot changes made while or after indexing.
+   */
+  private final Map<String, Long> indexedAt = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService warmUpScheduler =
+      Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("SourceWarmUp"));
+  private SourceRefresher refresher;
 
   /**
    * @param urls The default urls
-   * @see #JavadocFetcher(Iterable)
+   * @see #JavadocFetcher(Iterable, ParallelIndexer, IndexSnapshotStore, long, int)
    */
   public JavadocFetcher(String... urls) {
-    this(Arrays.asList(urls));
+    this(
+        Arrays.asList(urls),
+        new ParallelIndexer(DEFAULT_INDEXING_THREADS, DEFAULT_TIMEOUT),
+        IndexSnapshotStore.none(),
+        DEFAULT_METHOD_CACHE_BYTES,
+        DEFAULT_QUERY_CACHE_ENTRIES
+    );
   }
 
   /**
    * @param urls The default urls
+   * @param indexer The {@link ParallelIndexer} to index sources with
+   * @param snapshotStore The {@link IndexSnapshotStore} to restore and save sources with
+   * @param methodCacheBytes The approximate maximum size of the method cache in bytes
+   * @param queryCacheEntries The maximum amount of memoized query results
    */
   @SuppressWarnings("WeakerAccess")
-  public JavadocFetcher(Iterable<String> urls) {
-    managers = new ArrayList<>();
+  public JavadocFetcher(Iterable<String> urls, ParallelIndexer indexer,
+      IndexSnapshotStore snapshotStore, long methodCacheBytes, int queryCacheEntries) {
+    this.indexer = indexer;
+    this.snapshotStore = snapshotStore;
+    this.methodCache = new LruCache<>(methodCacheBytes, JavadocFetcher::estimateSize);
+    this.queryCache = new LruCache<>(queryCacheEntries, result -> 1);
 
-    populateDefaultManagers(urls);
+    List<JavadocManager> managers = new ArrayList<>();
+    List<JavadocManager> notRestored = populateDefaultManagers(urls, managers);
 
-    // build index for all
-    managers.forEach(this::indexOrExit);
+    // build index for all that had no snapshot, the restored ones are indexed in the background
+    indexAllOrExit(notRestored);
+    notRestored.forEach(snapshotStore::saveAsync);
 
-    swappingManager = new AtomicReference<>(new JavadocManager());
+    sources.set(SourceSet.create(managers, new JavadocManager()));
+    warmUpAsync(warmingSources.keySet());
   }
 
-  private void populateDefaultManagers(Iterable<String> urls) {
+  /**
+   * Adds a {@link JavadocManager} for every url. Urls with a snapshot get an unindexed manager and
+   * are remembered in {@link #warmingSources}.
+   *
+   * @param urls The urls
+   * @param managers The list to add the {@link JavadocManager}s to
+   * @return All {@link JavadocManager}s that could not be restored and need indexing right away
+   */
+  private List<JavadocManager> populateDefaultManagers(Iterable<String> urls,
+      List<JavadocManager> managers) {
+    List<JavadocManager> notRestored = new ArrayList<>();
     for (String url : urls) {
       String resolvedUrl = resolveStandardUrls(url);
-      managers.add(createJavadocManager(resolvedUrl));
+      JavadocManager manager = createJavadocManager(resolvedUrl);
+      managers.add(manager);
+
+      Optional<SourceSnapshot> snapshot = snapshotStore.load(resolvedUrl);
+      if (snapshot.isPresent()) {
+        warmingSources.put(resolvedUrl, snapshot.get());
+      } else {
+        notRestored.add(manager);
+      }
     }
+    return notRestored;
   }
 
   /**
@@ -71,12 +176,13 @@ public class JavadocFetcher {
   }
 
   /**
-   * Creates a {@link JavadocManager} for the given url.
+   * Creates a {@link JavadocManager} for the given url, configured like all managers of the
+   * fetcher. It is not indexed yet.
    *
    * @param url The URL to create it for
    * @return The created {@link JavadocManager}
    */
-  private JavadocManager createJavadocManager(String url) {
+  public static JavadocManager createJavadocManager(String url) {
     JavadocManager manager = new JavadocManager();
     manager.getSettings().setSilentlyIgnoreUnknownTags(true);
     manager.getSettings().setBaseUrl(url);
@@ -84,21 +190,23 @@ public class JavadocFetcher {
   }
 
   /**
-   * Indexes the {@link JavadocManager}. Shuts down the bot if an error occurs.
+   * Indexes all {@link JavadocManager}s. Shuts down the bot if an error occurs.
    *
-   * @param manager The {@link JavadocManager} to index
-   */
-  private void indexOrExit(JavadocManager manager) {
-    try {
-      manager.index();
-    } catch (Throwable e) {
-      LOGGER.log(
-          Level.SEVERE,
-          "Error indexing a default javadoc url: '" + manager.getSettings().getBaseUrl() + "'",
-          e
-      );
-      System.exit(0);
+   * @param managers The {@link JavadocManager}s to index
+   */
+  private void indexAllOrExit(List<JavadocManager> managers) {
+    Map<String, Throwable> errors = indexAll(managers);
+
+    if (errors.isEmpty()) {
+      return;
     }
+
+    errors.forEach((url, error) -> LOGGER.log(
+        Level.SEVERE,
+        "Error indexing a default javadoc url: '" + url + "'",
+        error
+    ));
+    System.exit(0);
   }
 
   /**
@@ -108,17 +216,60 @@ public class JavadocFetcher {
    * @return true if the url was changed
    */
   public boolean setUrl(String url) {
-    JavadocManager manager = createJavadocManager(url);
+    JavadocManager manager = createJavadocManager(resolveStandardUrls(url));
 
-    try {
-      manager.index();
-    } catch (Throwable e) {
+    if (!indexAll(Collections.singletonList(manager)).isEmpty()) {
       return false;
     }
-    swappingManager.set(manager);
+    snapshotStore.saveAsync(manager);
+    swapSources(current -> current.withSwappingManager(manager));
+    warmingSources.remove(manager.getSettings().getBaseUrl());
+    return true;
+  }
+
+  /**
+   * Sets the url to fetch javadoc from. If there is a snapshot for it, the url is indexed in the
+   * background and classes are only linked from the snapshot until then.
+   *
+   * @param url The new base url
+   * @return true if the url was changed
+   * @see #setUrl(String)
+   */
+  public boolean restoreUrl(String url) {
+    String resolvedUrl = resolveStandardUrls(url);
+    Optional<SourceSnapshot> snapshot = snapshotStore.load(resolvedUrl);
+
+    if (!snapshot.isPresent()) {
+      return setUrl(url);
+    }
+    warmingSources.put(resolvedUrl, snapshot.get());
+    swapSources(current -> current.withSwappingManager(createJavadocManager(resolvedUrl)));
+    warmUpAsync(Collections.singletonList(resolvedUrl));
     return true;
   }
 
+  /**
+   * Indexes restored sources in the background, retrying the failed ones after a delay.
+   *
+   * @param urls The base urls of the sources
+   */
+  private void warmUpAsync(Collection<String> urls) {
+    if (urls.isEmpty()) {
+      return;
+    }
+    List<String> toIndex = new ArrayList<>(urls);
+    warmUpScheduler.execute(() -> {
+      Set<String> failed = reindexSources(toIndex);
+      failed.retainAll(warmingSources.keySet());
+
+      if (!failed.isEmpty()) {
+        warmUpScheduler.schedule(
+            () -> warmUpAsync(failed), WARM_UP_RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS
+        );
+      }
+    });
+  }
+
   /**
    * Sets the base path.
    *
@@ -134,32 +285,147 @@ public class JavadocFetcher {
       managers.add(javadocManager);
     }
 
+    Map<String, Throwable> errors = indexAll(managers);
+    if (!errors.isEmpty()) {
+      errors.forEach((url, error) -> LOGGER.log(
+          Level.WARNING,
+          "Failed to set base path to " + path + ". Died at '" + url + "'.",
+          error
+      ));
+      return false;
+    }
+    managers.forEach(snapshotStore::saveAsync);
+
+    swapSources(current -> current.withBasePath(managers));
+    managers.forEach(manager -> warmingSources.remove(manager.getSettings().getBaseUrl()));
+
+    return true;
+  }
+
+  /**
+   * @return An asynchronous view of this fetcher
+   */
+  public AsyncJavadocFetcher async() {
+    return async;
+  }
+
+  /**
+   * Adds a listener that is called after the sources changed, on the thread that changed them.
+   *
+   * @param listener The listener to add
+   */
+  public void addSourceChangeListener(Runnable listener) {
+    sourceChangeListeners.add(listener);
+  }
+
+  /**
+   * Starts re-indexing sources in the background whenever their javadoc changes.
+   *
+   * @param interval The interval to check for changes in
+   */
+  public synchronized void startRefreshing(Duration interval) {
+    if (refresher != null) {
+      refresher.stop();
+    }
+    refresher = new SourceRefresher(
+        () -> sources.get().getAllManagers().stream()
+            .map(manager -> manager.getSettings().getBaseUrl())
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList()),
+        url -> reindexSources(Collections.singletonList(url)),
+        indexedAt::get
+    );
+    refresher.start(interval);
+  }
+
+  /**
+   * Indexes managers with the {@link #indexer}, remembering when each index was started.
+   *
+   * @param managers The {@link JavadocManager}s to index
+   * @return The errors keyed by the base url of the failed source
+   */
+  private Map<String, Throwable> indexAll(List<JavadocManager> managers) {
+    long startedAt = System.currentTimeMillis();
+    Map<String, Throwable> errors = indexer.indexAll(managers);
+
     for (JavadocManager manager : managers) {
-      try {
-        manager.index();
-      } catch (Throwable e) {
-        LOGGER.log(
-            Level.WARNING,
-            "Failed to set base path to " + path + ". "
-                + "Died at '" + manager.getSettings().getBaseUrl() + "'."
-        );
-        return false;
+      String url = manager.getSettings().getBaseUrl();
+      if (!errors.containsKey(url)) {
+        indexedAt.put(url, startedAt);
       }
     }
+    return errors;
+  }
+
+  /**
+   * Indexes sources again and swaps them in once all are done. Queries are answered with the old
+   * index until then.
+   *
+   * @param urls The base urls of the sources
+   * @return The base urls of the sources that could not be indexed
+   */
+  private Set<String> reindexSources(Collection<String> urls) {
+    List<JavadocManager> managers = urls.stream()
+        .map(JavadocFetcher::createJavadocManager)
+        .collect(Collectors.toList());
+
+    Map<String, Throwable> errors = indexAll(managers);
+    errors.forEach((url, error) -> LOGGER.log(
+        Level.WARNING, "Failed to re-index '" + url + "'", error
+    ));
 
-    synchronized (this.managers) {
-      this.managers.clear();
-      this.managers.addAll(managers);
+    List<JavadocManager> indexed = managers.stream()
+        .filter(manager -> !errors.containsKey(manager.getSettings().getBaseUrl()))
+        .collect(Collectors.toList());
+    if (!indexed.isEmpty()) {
+      indexed.forEach(snapshotStore::saveAsync);
+      swapSources(current -> {
+        SourceSet result = current;
+        for (JavadocManager manager : indexed) {
+          result = result.withReplacedSource(manager);
+        }
+        return result;
+      });
+      indexed.forEach(manager -> warmingSources.remove(manager.getSettings().getBaseUrl()));
     }
+    return new HashSet<>(errors.keySet());
+  }
 
-    return true;
+  /**
+   * Publishes a new {@link SourceSet} and drops everything cached for the old one.
+   *
+   * <p>Writers are serialized, so no change is lost. Readers never block and see either the old
+   * or the new set.
+   *
+   * @param change Creates the new set from the current one
+   */
+  private synchronized void swapSources(UnaryOperator<SourceSet> change) {
+    SourceSet newSources = change.apply(sources.get());
+    sources.set(newSources);
+    methodCache.invalidateAll();
+
+    // sources that are not used anymore need no warm up
+    warmingSources.keySet().retainAll(
+        newSources.getAllManagers().stream()
+            .map(manager -> manager.getSettings().getBaseUrl())
+            .collect(Collectors.toSet())
+    );
+
+    for (Runnable listener : sourceChangeListeners) {
+      try {
+        listener.run();
+      } catch (RuntimeException e) {
+        LOGGER.log(Level.WARNING, "A source change listener failed", e);
+      }
+    }
   }
 
   /**
    * @return The Base path
    */
   public List<String> getBasePath() {
-    return managers.stream()
+    return sources.get().getBasePath().stream()
         .map(JavadocManager::getSettings)
         .map(JavadocSettings::getBaseUrl)
         .collect(Collectors.toList());
@@ -168,11 +434,54 @@ public class JavadocFetcher {
   /**
    * Returns all classes ending with the given string.
    *
+   * <p>Unlike the other lookups this does not use the {@link FanOut}: the combined class index
+   * of all sources answers it with a single range scan, in the same order every time. All matches
+   * are returned, as a query matching several classes lists them.
+   *
    * @param name the name of the class
    * @return All classes ending in that name (including packages)
    */
   public List<JavadocClass> getClassesEndingIn(String name) {
-    return doForAll(manager -> manager.getClassEndingIn(name));
+    SourceSet sourceSet = sources.get();
+    return memoize(
+        sourceSet, QueryType.CLASSES_ENDING_IN, name,
+        normalized -> sourceSet.getClassIndex().getEndingIn(normalized)
+    );
+  }
+
+  /**
+   * Returns classes ending with the given string from sources that were restored from a snapshot
+   * and are still indexed in the background. They can only be linked until then.
+   *
+   * @param name The name of the class
+   * @param amount The maximum amount of classes to return
+   * @return The matching classes from the snapshots
+   */
+  public List<ClassEntry> getWarmingClassesEndingIn(String name, int amount) {
+    if (warmingSources.isEmpty()) {
+      return Collections.emptyList();
+    }
+    String normalized = QueryKey.normalize(name);
+    List<ClassEntry> result = new ArrayList<>();
+    for (SourceSnapshot snapshot : warmingSources.values()) {
+      result.addAll(snapshot.findEndingIn(normalized, amount - result.size()));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the simple names of the classes most similar to the given name. Meant for queries
+   * that found no class, to suggest what the user might have meant.
+   *
+   * @param name The name of the class. Only the part after the last dot is considered.
+   * @param amount The maximum amount of names to return
+   * @return The most similar class names, best first
+   */
+  public List<String> getSimilarClassNames(String name, int amount) {
+    String simpleName = name.substring(name.lastIndexOf('.') + 1);
+    return sources.get().getClassNameIndex().findSimilar(
+        simpleName, amount, SIMILARITY_SEARCH_BUDGET.toNanos()
+    );
   }
 
   /**
@@ -182,7 +491,14 @@ public class JavadocFetcher {
    * @return All methods in the class
    */
   public List<JavadocMethod> getAllMethods(JavadocClass javadocClass) {
-    return doForAll(manager -> manager.getAllMethods(javadocClass));
+    SourceSet sourceSet = sources.get();
+    return methodCache.get(
+        getMethodKey(sourceSet, javadocClass.getUrl()),
+        key -> methodFlight.execute(key, () -> doForAll(
+            sourceSet, manager -> manager.getAllMethods(javadocClass),
+            JavadocMethod::getUrl, FanOut.UNLIMITED
+        ))
+    );
   }
 
   /**
@@ -195,7 +511,97 @@ public class JavadocFetcher {
    */
   public List<JavadocMethod> getMethodWithParams(JavadocClass javadocClass,
       String nameAndParams) {
-    return doForAll(manager -> manager.getMethodsWithNameAndParam(javadocClass, nameAndParams));
+    SourceSet sourceSet = sources.get();
+    String selector = QueryKey.normalize(nameAndParams);
+    return methodCache.get(
+        getMethodKey(sourceSet, javadocClass.getUrl() + "#" + selector),
+        key -> methodFlight.execute(key, () -> doForAll(
+            sourceSet,
+            manager -> manager.getMethodsWithNameAndParam(javadocClass, selector),
+            JavadocMethod::getUrl, FanOut.UNLIMITED
+        ))
+    );
+  }
+
+  /**
+   * @param sourceSet The {@link SourceSet} the lookup is answered with
+   * @param query The url of the class, optionally followed by {@code #selector}
+   * @return The key for the {@link #methodCache}
+   */
+  private static String getMethodKey(SourceSet sourceSet, String query) {
+    return sourceSet.getGeneration() + "|" + query;
+  }
+
+  /**
+   * Returns the memoized result of a query or computes and memoizes it.
+   *
+   * @param sourceSet The {@link SourceSet} the query is answered with
+   * @param type The {@link QueryType}
+   * @param query The query
+   * @param resultFunction Computes the result from the {@link QueryKey#normalize(String)
+   *     normalized} query, so it matches the key it is memoized under
+   * @param <T> The type of the result
+   * @return The result of the query
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T memoize(SourceSet sourceSet, QueryType type, String query,
+      Function<String, T> resultFunction) {
+    QueryKey key = new QueryKey(sourceSet.getGeneration(), type, query);
+    return (T) queryCache.get(
+        key, ignored -> queryFlight.execute(key, () -> resultFunction.apply(key.getQuery()))
+    );
+  }
+
+  /**
+   * @return The current index generation. Increased every time the sources change.
+   */
+  public long getGeneration() {
+    return sources.get().getGeneration();
+  }
+
+  /**
+   * @return The amount of indexed classes of every source keyed by its base url
+   */
+  public Map<String, Integer> getIndexSizes() {
+    return sources.get().getClassCounts();
+  }
+
+  /**
+   * @return The cache for memoized query results
+   */
+  public LruCache<QueryKey, Object> getQueryCache() {
+    return queryCache;
+  }
+
+  /**
+   * @return The cache for the methods of classes
+   */
+  public LruCache<String, List<JavadocMethod>> getMethodCache() {
+    return methodCache;
+  }
+
+  /**
+   * Estimates the memory used by a list of methods.
+   *
+   * @param methods The methods
+   * @return The approximate size in bytes
+   */
+  private static long estimateSize(List<JavadocMethod> methods) {
+    long size = 64;
+    for (JavadocMethod method : methods) {
+      long chars = length(method.getDescription())
+          + length(method.getDeclaration())
+          + length(method.getNameWithParameters())
+          + length(method.getReturnValue())
+          + length(method.getUrl());
+      // two bytes per char and some headers
+      size += chars * 2 + 128;
+    }
+    return size;
+  }
+
+  private static int length(String string) {
+    return string == null ? 0 : string.length();
   }
 
   /**
@@ -205,10 +611,17 @@ public class JavadocFetcher {
    * @return The package with that name, if any.
    */
   public Optional<Package> getPackage(String name) {
-    return doForAllSingle(manager -> manager.getPackage(name)).stream()
-        .filter(Optional::isPresent)
-        .map(Optional::get)
-        .findFirst();
+    SourceSet sourceSet = sources.get();
+    return memoize(
+        sourceSet, QueryType.PACKAGE, name,
+        normalized -> doForAll(
+            sourceSet,
+            manager -> manager.getPackage(normalized)
+                .map(Collections::singletonList)
+                .orElse(Collections.emptyList()),
+            Package::getUrl, 1
+        ).stream().findFirst()
+    );
   }
 
   /**
@@ -217,40 +630,24 @@ public class JavadocFetcher {
    * @return All packages
    */
   public List<Package> getAllPackages() {
-    return doForAll(JavadocManager::getAllPackages);
-  }
-
-  /**
-   * Performs an action on all {@link JavadocManager}s.
-   *
-   * @param managerConsumer The consumer
-   * @param <T> The result class
-   * @return The accumulated list
-   */
-  private <T> List<T> doForAll(Function<JavadocManager, Collection<T>> managerConsumer) {
-    Set<T> collection = new HashSet<>();
-    for (JavadocManager manager : managers) {
-      collection.addAll(managerConsumer.apply(manager));
-    }
-    collection.addAll(managerConsumer.apply(swappingManager.get()));
-
-    return new ArrayList<>(collection);
+    return doForAll(
+        sources.get(), JavadocManager::getAllPackages, Package::getUrl, FanOut.UNLIMITED
+    );
   }
 
   /**
-   * Performs an action on all {@link JavadocManager}s.
+   * Performs a lookup on all {@link JavadocManager}s and merges the results.
    *
-   * @param managerConsumer The consumer
+   * @param sourceSet The {@link SourceSet} to use
+   * @param lookup The lookup to perform
+   * @param urlFunction Returns the url of a result, used to detect duplicates
+   * @param limit The amount of results after which the lookup may stop
    * @param <T> The result class
-   * @return The accumulated list
+   * @return The accumulated list. Unmodifiable, as it might be shared through the caches.
    */
-  private <T> List<T> doForAllSingle(Function<JavadocManager, T> managerConsumer) {
-    Set<T> collection = new HashSet<>();
-    for (JavadocManager manager : managers) {
-      collection.add(managerConsumer.apply(manager));
-    }
-    collection.add(managerConsumer.apply(swappingManager.get()));
-
-    return new ArrayList<>(collection);
+  private <T> List<T> doForAll(SourceSet sourceSet,
+      Function<JavadocManager, ? extends Collection<T>> lookup,
+      Function<T, String> urlFunction, int limit) {
+    return fanOut.collect(sourceSet.getAllManagers(), lookup, urlFunction, limit);
   }
 }
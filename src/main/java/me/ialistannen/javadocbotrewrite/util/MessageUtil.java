@@ -1,15 +1,17 @@
 package me.ialistannen.javadocbotrewrite.util;
 
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
+import java.util.logging.Logger;
+import me.ialistannen.javadocbotrewrite.metrics.LatencyHistogram;
+import me.ialistannen.javadocbotrewrite.util.OutboundScheduler.Priority;
+import me.ialistannen.javadocbotrewrite.util.PendingDeletionStore.PendingDeletion;
+import net.dv8tion.jda.core.JDA;
 import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageChannel;
+import net.dv8tion.jda.core.entities.PrivateChannel;
+import net.dv8tion.jda.core.entities.User;
 import net.dv8tion.jda.core.requests.RestAction;
 
 /**
@@ -17,80 +19,227 @@ import net.dv8tion.jda.core.requests.RestAction;
  */
 public class MessageUtil {
 
-  private static final ScheduledExecutorService executor
-      = Executors.newSingleThreadScheduledExecutor();
+  private static final Logger LOGGER = Logger.getLogger("MessageUtil");
+
+  private static final int ACTION_THREADS = 2;
+
+  private static final TimingWheel timingWheel = new TimingWheel(
+      Duration.ofMillis(100), 512,
+      Executors.newFixedThreadPool(ACTION_THREADS, new DaemonThreadFactory("MessageAction"))
+  );
+  private static final int MAX_QUEUED_SENDS_PER_CHANNEL = 50;
+  private static final int MAX_QUEUED_DELETES_PER_CHANNEL = 500;
+  private static final Duration DROPPED_DELETION_RETRY_DELAY = Duration.ofSeconds(30);
+  /**
+   * Deletions whose channel can not be found are kept for the next start, until they are this
+   * overdue.
+   */
+  private static final Duration MAX_UNRESOLVED_OVERDUE = Duration.ofDays(7);
+
+  private static final OutboundScheduler outboundScheduler = new OutboundScheduler(
+      MAX_QUEUED_SENDS_PER_CHANNEL, MAX_QUEUED_DELETES_PER_CHANNEL
+  );
+  private static final Consumer<Message> NOP_CONSUMER = message -> {
+  };
+
+  private static volatile PendingDeletionStore pendingDeletions = PendingDeletionStore.none();
 
   private static Duration defaultDuration = Duration.ofSeconds(10);
 
   /**
    * Sends a {@link Message} and allows you to do something with the resulting {@link Message}.
    *
+   * <p>The message is queued in the {@link OutboundScheduler}. Messages that will be deleted
+   * are considered short lived notices and sent after the answers queued in the same channel.
+   *
    * @param delay The {@link Duration} to wait
+   * @param channel The {@link MessageChannel} the message is sent in
    * @param messageSendAction The {@link RestAction} that sends the {@link Message}
    * @param action The action to perform on the sent {@link Message}
+   * @see #sendAndThen(Duration, MessageChannel, RestAction, Consumer, LatencyHistogram)
    */
-  public static void sendAndThen(Duration delay, RestAction<Message> messageSendAction,
-      Consumer<Message> action) {
-
-    messageSendAction.queue(message -> executor.schedule(
-        () -> action.accept(message),
-        delay.toMillis(),
-        TimeUnit.MILLISECONDS
-    ));
+  public static void sendAndThen(Duration delay, MessageChannel channel,
+      RestAction<Message> messageSendAction, Consumer<Message> action) {
+    sendAndThen(delay, channel, messageSendAction, action, null);
   }
 
   /**
    * Sends a {@link Message} and allows you to do something with the resulting {@link Message}.
    *
-   * Uses the {@link #defaultDuration()} delay.
-   *
+   * @param delay The {@link Duration} to wait
+   * @param channel The {@link MessageChannel} the message is sent in
    * @param messageSendAction The {@link RestAction} that sends the {@link Message}
    * @param action The action to perform on the sent {@link Message}
-   * @see #sendAndThen(Duration, RestAction, Consumer)
+   * @param sendLatency The histogram to record the send latency in, e.g. the one of the command
+   * sending it. May be null.
+   * @see #sendAndThen(Duration, MessageChannel, RestAction, Consumer)
    */
-  public static void sendAndThen(RestAction<Message> messageSendAction, Consumer<Message> action) {
-    sendAndThen(defaultDuration(), messageSendAction, action);
+  public static void sendAndThen(Duration delay, MessageChannel channel,
+      RestAction<Message> messageSendAction, Consumer<Message> action,
+      LatencyHistogram sendLatency) {
+
+    if (action == NOP_CONSUMER) {
+      outboundScheduler.send(channel, Priority.ANSWER, messageSendAction, action, sendLatency);
+      return;
+    }
+    if (action instanceof DeleteMessageAction) {
+      outboundScheduler.send(
+          channel, Priority.NOTICE, messageSendAction,
+          message -> scheduleDeletion(channel, message.getId(), delay, System.currentTimeMillis()),
+          sendLatency
+      );
+      return;
+    }
+
+    outboundScheduler.send(
+        channel, Priority.ANSWER, messageSendAction,
+        message -> timingWheel.schedule(delay, () -> action.accept(message)),
+        sendLatency
+    );
   }
 
   /**
-   * Slices a message into chunks.
+   * Deletes a message as soon as nothing more important is waiting in its channel.
    *
-   * @param message The Message to slice
-   * @param maxLength The maximum length of the message
-   * @param isTerminator The {@link Predicate} to check if the line can be broken at the given
-   * character
-   * @return The sliced message parts
-   * @see #sliceMessage(String, int, Predicate)
-   */
-  public static List<String> sliceMessage(String message, int maxLength,
-      Predicate<Character> isTerminator) {
-
-    if (message.isEmpty()) {
-      return Collections.singletonList("");
-    }
+   * @param message The {@link Message} to delete
+   */
+  public static void deleteMessage(Message message) {
+    outboundScheduler.delete(message.getChannel(), message.getId(), () -> {
+    });
+  }
 
-    List<String> messages = new ArrayList<>();
+  /**
+   * Sets the store pending deletions are persisted in.
+   *
+   * @param store The {@link PendingDeletionStore} to use
+   */
+  public static void usePendingDeletionStore(PendingDeletionStore store) {
+    pendingDeletions = store;
+  }
+
+  /**
+   * Schedules all deletions that were pending when the bot was stopped. Overdue ones are deleted
+   * right away.
+   *
+   * <p>JDA does not cache private channels after a restart, so they are reopened through their
+   * user. Deletions whose channel can not be found are kept in the store for the next start.
+   *
+   * @param jda The {@link JDA} instance to find the channels with
+   */
+  public static void replayPendingDeletions(JDA jda) {
+    long now = System.currentTimeMillis();
+    int replayed = 0;
+    int kept = 0;
 
-    int position = 0;
-    while (position < message.length()) {
-      int end = position + maxLength;
+    for (PendingDeletion deletion : pendingDeletions.getRestored()) {
+      MessageChannel channel = jda.getTextChannelById(deletion.getChannelId());
+      if (channel == null) {
+        channel = jda.getPrivateChannelById(deletion.getChannelId());
+      }
+      if (channel != null) {
+        replayDeletion(channel, deletion, now);
+        replayed++;
+        continue;
+      }
 
-      if (end >= message.length()) {
-        messages.add(message.substring(position));
-        break;
+      User user = deletion.getUserId() == null ? null : jda.getUserById(deletion.getUserId());
+      if (user != null) {
+        user.openPrivateChannel().queue(
+            privateChannel -> replayDeletion(privateChannel, deletion, now),
+            failure -> keepUnresolved(deletion, now)
+        );
+        replayed++;
+        continue;
       }
-      String part = message.substring(position, end);
-      for (int i = part.length() - 1; i >= 0; i--) {
-        if (isTerminator.test(part.charAt(i))) {
-          part = part.substring(0, i);
-          break;
-        }
+
+      if (keepUnresolved(deletion, now)) {
+        kept++;
       }
-      position += part.length();
-      messages.add(part);
     }
 
-    return messages;
+    LOGGER.info("Replayed " + replayed + " pending deletions, kept " + kept + " unresolved");
+  }
+
+  private static void replayDeletion(MessageChannel channel, PendingDeletion deletion,
+      long now) {
+    Duration delay = Duration.ofMillis(Math.max(0, deletion.getDueAt() - now));
+    scheduleDeletion(channel, deletion.getMessageId(), delay, now);
+  }
+
+  /**
+   * Keeps a deletion whose channel could not be found in the store, so the next start tries
+   * again. Deletions that are overdue for too long are dropped from it.
+   *
+   * @param deletion The {@link PendingDeletion}
+   * @param now The current time in epoch milliseconds
+   * @return True if it was kept
+   */
+  private static boolean keepUnresolved(PendingDeletion deletion, long now) {
+    if (now - deletion.getDueAt() > MAX_UNRESOLVED_OVERDUE.toMillis()) {
+      LOGGER.fine("Dropping pending deletion in unknown channel " + deletion.getChannelId());
+      pendingDeletions.remove(deletion.getMessageId());
+      return false;
+    }
+    // still in the store, which was loaded from the file
+    return true;
+  }
+
+  /**
+   * @return The amount of messages waiting to be deleted
+   */
+  public static int getPendingDeletionCount() {
+    return pendingDeletions.size();
+  }
+
+  private static void scheduleDeletion(MessageChannel channel, String messageId, Duration delay,
+      long now) {
+
+    PendingDeletionStore store = pendingDeletions;
+    String userId = channel instanceof PrivateChannel
+        ? ((PrivateChannel) channel).getUser().getId()
+        : null;
+    store.add(new PendingDeletion(channel.getId(), messageId, now + delay.toMillis(), userId));
+
+    timingWheel.schedule(delay, () -> queueDeletion(channel, messageId, store));
+  }
+
+  /**
+   * Queues a scheduled deletion, trying again later if the channel is full. The deletion stays
+   * in the store until then, so it is not lost on a restart either.
+   *
+   * @param channel The {@link MessageChannel} the message is in
+   * @param messageId The id of the message
+   * @param store The {@link PendingDeletionStore} the deletion is persisted in
+   */
+  private static void queueDeletion(MessageChannel channel, String messageId,
+      PendingDeletionStore store) {
+    if (!outboundScheduler.delete(channel, messageId, () -> store.remove(messageId))) {
+      timingWheel.schedule(
+          DROPPED_DELETION_RETRY_DELAY, () -> queueDeletion(channel, messageId, store)
+      );
+    }
+  }
+
+  /**
+   * @return The {@link OutboundScheduler} all messages are sent with
+   */
+  public static OutboundScheduler getOutboundScheduler() {
+    return outboundScheduler;
+  }
+
+  /**
+   * Sends a {@link Message} and allows you to do something with the resulting {@link Message}.
+   *
+   * Uses the {@link #defaultDuration()} delay.
+   *
+   * @param channel The {@link MessageChannel} the message is sent in
+   * @param messageSendAction The {@link RestAction} that sends the {@link Message}
+   * @param action The action to perform on the sent {@link Message}
+   * @see #sendAndThen(Duration, MessageChannel, RestAction, Consumer)
+   */
+  public static void sendAndThen(MessageChannel channel, RestAction<Message> messageSendAction,
+      Consumer<Message> action) {
+    sendAndThen(defaultDuration(), channel, messageSendAction, action);
   }
 
   /**
@@ -111,14 +260,25 @@ public class MessageUtil {
    * @return A {@link Consumer} that will delete the message
    */
   public static Consumer<Message> deleteMessageConsumer() {
-    return message -> message.delete().queue();
+    return new DeleteMessageAction();
   }
 
   /**
    * @return A {@link Consumer} that will do nothing
    */
   public static Consumer<Message> nopConsumer() {
-    return message -> {
-    };
+    return NOP_CONSUMER;
+  }
+
+  /**
+   * Deletes a message. {@link #sendAndThen(Duration, MessageChannel, RestAction, Consumer)}
+   * recognizes it and persists the deletion, so it is not lost on restart.
+   */
+  private static class DeleteMessageAction implements Consumer<Message> {
+
+    @Override
+    public void accept(Message message) {
+      deleteMessage(message);
+    }
   }
 }
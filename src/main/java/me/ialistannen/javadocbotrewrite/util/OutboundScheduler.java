@@ -0,0 +1,358 @@
+package me.ialistannen.javadocbotrewrite.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import me.ialistannen.javadocbotrewrite.metrics.LatencyHistogram;
+import me.ialistannen.javadocbotrewrite.metrics.Metrics;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageChannel;
+import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.requests.RestAction;
+
+/**
+ * Orders the outgoing requests of each channel, so answers are not stuck behind cleanup.
+ *
+ * <p>Every channel has at most one request in flight. When it completes, the next request is
+ * picked by {@link Priority}. Deletions come last and are combined into a single bulk delete
+ * in text channels. The queues of a channel are bounded, requests exceeding them are dropped,
+ * logged and counted.
+ *
+ * <p>The time from queueing a message until Discord accepted it is recorded per priority, and
+ * additionally in a histogram passed along with the message, e.g. the one of its command.
+ */
+public class OutboundScheduler {
+
+  private static final Logger LOGGER = Logger.getLogger("OutboundScheduler");
+
+  /**
+   * Discord accepts between 2 and 100 messages in a single bulk delete.
+   */
+  private static final int MIN_BULK_DELETE = 2;
+  private static final int MAX_BULK_DELETE = 100;
+
+  private final Map<String, ChannelQueue> queues = new ConcurrentHashMap<>();
+  private final int maxQueuedSends;
+  private final int maxQueuedDeletes;
+  private final Map<Priority, LatencyHistogram> sendLatencies = new EnumMap<>(Priority.class);
+  private final AtomicLong droppedSends = new AtomicLong();
+  private final AtomicLong droppedDeletes = new AtomicLong();
+
+  /**
+   * @param maxQueuedSends The maximum amount of messages waiting to be sent per channel
+   * @param maxQueuedDeletes The maximum amount of messages waiting to be deleted per channel
+   */
+  public OutboundScheduler(int maxQueuedSends, int maxQueuedDeletes) {
+    this.maxQueuedSends = maxQueuedSends;
+    this.maxQueuedDeletes = maxQueuedDeletes;
+
+    for (Priority priority : Priority.values()) {
+      sendLatencies.put(priority, Metrics.getDefault().histogram(
+          "javadocbot_send_seconds", "The time from queueing a message until it was sent",
+          "priority", priority.name().toLowerCase(Locale.ROOT)
+      ));
+    }
+  }
+
+  /**
+   * Queues a message.
+   *
+   * @param channel The {@link MessageChannel} the message is sent in
+   * @param priority The {@link Priority} of the message
+   * @param sendAction The {@link RestAction} sending the message
+   * @param onSent Called with the sent message
+   * @return False if the message was dropped because the queue is full
+   * @see #send(MessageChannel, Priority, RestAction, Consumer, LatencyHistogram)
+   */
+  public boolean send(MessageChannel channel, Priority priority, RestAction<Message> sendAction,
+      Consumer<Message> onSent) {
+    return send(channel, priority, sendAction, onSent, null);
+  }
+
+  /**
+   * Queues a message.
+   *
+   * @param channel The {@link MessageChannel} the message is sent in
+   * @param priority The {@link Priority} of the message
+   * @param sendAction The {@link RestAction} sending the message
+   * @param onSent Called with the sent message
+   * @param sendLatency The histogram to record the send latency in as well. May be null.
+   * @return False if the message was dropped because the queue is full
+   */
+  public boolean send(MessageChannel channel, Priority priority, RestAction<Message> sendAction,
+      Consumer<Message> onSent, LatencyHistogram sendLatency) {
+
+    while (true) {
+      ChannelQueue queue = getQueue(channel);
+      synchronized (queue) {
+        if (queue.removed) {
+          // drained and removed since we looked it up, the next lookup creates a new one
+          continue;
+        }
+        if (queue.queuedSends >= maxQueuedSends) {
+          LOGGER.warning(
+              "Dropped a message for full channel " + channel.getId()
+                  + " (" + droppedSends.incrementAndGet() + " dropped in total)"
+          );
+          return false;
+        }
+        queue.sends.get(priority).add(
+            new PendingSend(sendAction, onSent, sendLatencies.get(priority), sendLatency)
+        );
+        queue.queuedSends++;
+      }
+      drain(queue);
+      return true;
+    }
+  }
+
+  /**
+   * Queues the deletion of a message.
+   *
+   * @param channel The {@link MessageChannel} the message is in
+   * @param messageId The id of the message
+   * @param onDone Called once the deletion was attempted, whether it succeeded or not
+   * @return False if the deletion was dropped because the queue is full
+   */
+  public boolean delete(MessageChannel channel, String messageId, Runnable onDone) {
+    while (true) {
+      ChannelQueue queue = getQueue(channel);
+      synchronized (queue) {
+        if (queue.removed) {
+          continue;
+        }
+        if (queue.deletes.size() >= maxQueuedDeletes) {
+          LOGGER.warning(
+              "Dropped a deletion for full channel " + channel.getId()
+                  + " (" + droppedDeletes.incrementAndGet() + " dropped in total)"
+          );
+          return false;
+        }
+        queue.deletes.add(new PendingDelete(messageId, onDone));
+      }
+      drain(queue);
+      return true;
+    }
+  }
+
+  /**
+   * @return The amount of requests waiting in all channels
+   */
+  public int getQueuedCount() {
+    int count = 0;
+    for (ChannelQueue queue : queues.values()) {
+      synchronized (queue) {
+        count += queue.queuedSends + queue.deletes.size();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return The amount of messages dropped because their channel was full
+   */
+  public long getDroppedSendCount() {
+    return droppedSends.get();
+  }
+
+  /**
+   * @return The amount of deletions dropped because their channel was full
+   */
+  public long getDroppedDeleteCount() {
+    return droppedDeletes.get();
+  }
+
+  /**
+   * Returns the queue of a channel. Queues are removed once they are empty, so callers must
+   * check {@link ChannelQueue#removed} after taking its lock.
+   *
+   * @param channel The {@link MessageChannel}
+   * @return The queue of the channel
+   */
+  private ChannelQueue getQueue(MessageChannel channel) {
+    return queues.computeIfAbsent(channel.getId(), id -> new ChannelQueue(channel));
+  }
+
+  private void drain(ChannelQueue queue) {
+    Runnable request;
+    synchronized (queue) {
+      if (queue.busy) {
+        return;
+      }
+      request = nextRequest(queue);
+      if (request == null) {
+        queues.remove(queue.channel.getId(), queue);
+        queue.removed = true;
+        return;
+      }
+      queue.busy = true;
+    }
+
+    try {
+      request.run();
+    } catch (RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Could not issue a request in " + queue.channel.getId(), e);
+      finished(queue);
+    }
+  }
+
+  private void finished(ChannelQueue queue) {
+    synchronized (queue) {
+      queue.busy = false;
+    }
+    drain(queue);
+  }
+
+  /**
+   * Must hold the lock of the queue.
+   *
+   * @param queue The {@link ChannelQueue}
+   * @return The next request or null if the queue is empty
+   */
+  private Runnable nextRequest(ChannelQueue queue) {
+    for (Deque<PendingSend> sends : queue.sends.values()) {
+      PendingSend send = sends.poll();
+      if (send != null) {
+        queue.queuedSends--;
+        return () -> send.action.queue(
+            message -> {
+              send.latency.recordSince(send.queuedAt);
+              if (send.extraLatency != null) {
+                send.extraLatency.recordSince(send.queuedAt);
+              }
+              finished(queue);
+              send.onSent.accept(message);
+            },
+            failure -> finished(queue)
+        );
+      }
+    }
+
+    if (queue.deletes.isEmpty()) {
+      return null;
+    }
+
+    if (queue.channel instanceof TextChannel && queue.bulkDeleteAllowed
+        && queue.deletes.size() >= MIN_BULK_DELETE) {
+      List<PendingDelete> batch = new ArrayList<>();
+      while (batch.size() < MAX_BULK_DELETE && !queue.deletes.isEmpty()) {
+        batch.add(queue.deletes.poll());
+      }
+      return () -> bulkDelete(queue, batch);
+    }
+
+    PendingDelete delete = queue.deletes.poll();
+    return () -> queue.channel.deleteMessageById(delete.messageId).queue(
+        success -> deleted(queue, delete),
+        failure -> deleted(queue, delete)
+    );
+  }
+
+  private void bulkDelete(ChannelQueue queue, List<PendingDelete> batch) {
+    List<String> ids = new ArrayList<>(batch.size());
+    for (PendingDelete delete : batch) {
+      ids.add(delete.messageId);
+    }
+
+    try {
+      ((TextChannel) queue.channel).deleteMessagesByIds(ids).queue(
+          success -> {
+            finished(queue);
+            batch.forEach(delete -> delete.onDone.run());
+          },
+          failure -> bulkDeleteFailed(queue, batch, failure)
+      );
+    } catch (RuntimeException e) {
+      // thrown right away if we lack the permission to manage messages
+      bulkDeleteFailed(queue, batch, e);
+    }
+  }
+
+  private void bulkDeleteFailed(ChannelQueue queue, List<PendingDelete> batch, Throwable cause) {
+    LOGGER.log(
+        Level.FINE, "Bulk delete failed in " + queue.channel.getId() + ", deleting one by one",
+        cause
+    );
+    synchronized (queue) {
+      queue.bulkDeleteAllowed = false;
+      for (int i = batch.size() - 1; i >= 0; i--) {
+        queue.deletes.addFirst(batch.get(i));
+      }
+    }
+    finished(queue);
+  }
+
+  private void deleted(ChannelQueue queue, PendingDelete delete) {
+    finished(queue);
+    delete.onDone.run();
+  }
+
+  /**
+   * The priority of a message. Lower ordinals are sent first.
+   */
+  public enum Priority {
+    /**
+     * The answer to a command.
+     */
+    ANSWER,
+    /**
+     * Short lived notices, like errors or the usage of a command.
+     */
+    NOTICE
+  }
+
+  private static class ChannelQueue {
+
+    private final MessageChannel channel;
+    private final Map<Priority, Deque<PendingSend>> sends = new EnumMap<>(Priority.class);
+    private final Deque<PendingDelete> deletes = new ArrayDeque<>();
+    private int queuedSends;
+    private boolean busy;
+    private boolean removed;
+    private boolean bulkDeleteAllowed = true;
+
+    private ChannelQueue(MessageChannel channel) {
+      this.channel = channel;
+      for (Priority priority : Priority.values()) {
+        sends.put(priority, new ArrayDeque<>());
+      }
+    }
+  }
+
+  private static class PendingSend {
+
+    private final RestAction<Message> action;
+    private final Consumer<Message> onSent;
+    private final LatencyHistogram latency;
+    private final LatencyHistogram extraLatency;
+    private final long queuedAt = System.nanoTime();
+
+    private PendingSend(RestAction<Message> action, Consumer<Message> onSent,
+        LatencyHistogram latency, LatencyHistogram extraLatency) {
+      this.action = action;
+      this.onSent = onSent;
+      this.latency = latency;
+      this.extraLatency = extraLatency;
+    }
+  }
+
+  private static class PendingDelete {
+
+    private final String messageId;
+    private final Runnable onDone;
+
+    private PendingDelete(String messageId, Runnable onDone) {
+      this.messageId = messageId;
+      this.onDone = onDone;
+    }
+  }
+}
@@ -0,0 +1,231 @@
+package me.ialistannen.javadocbotrewrite.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers messages that still need to be deleted, so the deletions survive a restart.
+ *
+ * <p>The deletions stored by the last run are read when the store is created, so writing the
+ * file never drops them. Changes are written to disk periodically and on shutdown.
+ *
+ * <p>Each line of the file is one deletion:
+ * {@code <channel id> <message id> <due time in epoch milliseconds> [<user id>]}. The user id is
+ * only written for private channels, which can only be reopened through the user.
+ */
+public class PendingDeletionStore {
+
+  private static final Logger LOGGER = Logger.getLogger("PendingDeletionStore");
+
+  private final Path file;
+  private final Map<String, PendingDeletion> deletions = new ConcurrentHashMap<>();
+  private final List<PendingDeletion> restored;
+  private final AtomicBoolean dirty = new AtomicBoolean();
+
+  /**
+   * Creates a store with the deletions stored in the file and starts flushing it to disk.
+   *
+   * @param file The file to store the deletions in
+   * @param flushInterval The interval to write changes to disk in
+   */
+  public PendingDeletionStore(Path file, Duration flushInterval) {
+    this.file = file;
+    this.restored = read(file);
+    for (PendingDeletion deletion : restored) {
+      deletions.put(deletion.getMessageId(), deletion);
+    }
+
+    ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+        new DaemonThreadFactory("PendingDeletionFlusher")
+    );
+    long interval = flushInterval.toMillis();
+    flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "PendingDeletionSaver"));
+  }
+
+  private PendingDeletionStore() {
+    this.file = null;
+    this.restored = new ArrayList<>();
+  }
+
+  /**
+   * @return A store that does not persist anything
+   */
+  public static PendingDeletionStore none() {
+    return new PendingDeletionStore();
+  }
+
+  /**
+   * @param deletion The {@link PendingDeletion} to remember
+   */
+  public void add(PendingDeletion deletion) {
+    if (file == null) {
+      return;
+    }
+    deletions.put(deletion.getMessageId(), deletion);
+    dirty.set(true);
+  }
+
+  /**
+   * @param messageId The id of the message that was deleted
+   */
+  public void remove(String messageId) {
+    if (file == null) {
+      return;
+    }
+    if (deletions.remove(messageId) != null) {
+      dirty.set(true);
+    }
+  }
+
+  /**
+   * @return The amount of pending deletions
+   */
+  public int size() {
+    return deletions.size();
+  }
+
+  /**
+   * @return The deletions stored by the last run that are still pending
+   */
+  public Collection<PendingDeletion> getRestored() {
+    List<PendingDeletion> pending = new ArrayList<>();
+    for (PendingDeletion deletion : restored) {
+      if (deletions.get(deletion.getMessageId()) == deletion) {
+        pending.add(deletion);
+      }
+    }
+    return pending;
+  }
+
+  /**
+   * Reads all deletions stored in the file.
+   *
+   * @param file The file to read
+   * @return The stored deletions
+   */
+  private static List<PendingDeletion> read(Path file) {
+    List<PendingDeletion> loaded = new ArrayList<>();
+    if (Files.notExists(file)) {
+      return loaded;
+    }
+
+    try {
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        String[] parts = line.trim().split(" ");
+        if (parts.length != 3 && parts.length != 4) {
+          continue;
+        }
+        try {
+          loaded.add(new PendingDeletion(
+              parts[0], parts[1], Long.parseLong(parts[2]), parts.length == 4 ? parts[3] : null
+          ));
+        } catch (NumberFormatException e) {
+          LOGGER.fine("Skipping malformed pending deletion: " + line);
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not read the pending deletions from " + file, e);
+    }
+    return loaded;
+  }
+
+  private void flush() {
+    if (file == null || !dirty.getAndSet(false)) {
+      return;
+    }
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+    try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+      for (PendingDeletion deletion : deletions.values()) {
+        writer.write(
+            deletion.getChannelId() + " " + deletion.getMessageId() + " " + deletion.getDueAt()
+        );
+        if (deletion.getUserId() != null) {
+          writer.write(" " + deletion.getUserId());
+        }
+        writer.newLine();
+      }
+    } catch (IOException e) {
+      dirty.set(true);
+      LOGGER.log(Level.WARNING, "Could not write the pending deletions to " + file, e);
+      return;
+    }
+
+    try {
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      dirty.set(true);
+      LOGGER.log(Level.WARNING, "Could not move the pending deletions to " + file, e);
+    }
+  }
+
+  /**
+   * A message that should be deleted at some point in time.
+   */
+  public static class PendingDeletion {
+
+    private final String channelId;
+    private final String messageId;
+    private final long dueAt;
+    private final String userId;
+
+    /**
+     * @param channelId The id of the channel the message is in
+     * @param messageId The id of the message
+     * @param dueAt The time to delete it at, in epoch milliseconds
+     * @param userId The id of the user if the channel is a private one, null otherwise
+     */
+    public PendingDeletion(String channelId, String messageId, long dueAt, String userId) {
+      this.channelId = channelId;
+      this.messageId = messageId;
+      this.dueAt = dueAt;
+      this.userId = userId;
+    }
+
+    /**
+     * @return The id of the channel the message is in
+     */
+    public String getChannelId() {
+      return channelId;
+    }
+
+    /**
+     * @return The id of the message
+     */
+    public String getMessageId() {
+      return messageId;
+    }
+
+    /**
+     * @return The time to delete it at, in epoch milliseconds
+     */
+    public long getDueAt() {
+      return dueAt;
+    }
+
+    /**
+     * @return The id of the user if the channel is a private one, null otherwise
+     */
+    public String getUserId() {
+      return userId;
+    }
+  }
+}
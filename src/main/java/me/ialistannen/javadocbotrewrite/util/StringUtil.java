@@ -1,25 +1,18 @@
 package me.ialistannen.javadocbotrewrite.util;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
 
 /**
  * Some utility methods for {@link String}s.
  */
 public class StringUtil {
 
-  private static final Pattern CODE_BLOCK_PATTERN = Pattern
-      .compile("```(\\n[\\s\\S]+?\\n```)");
   private static final String CODE_BLOCK_LANGUAGE = "java";
 
-  private static Set<Character> SPACE_EQUIVALENTS = new HashSet<>(Arrays.asList(
-      '\u00A0', // no break space
-      '\u2003', // EM space
-      '\u200B' // 0 width space
-  ));
+  private static final TextFormatter CODE_BLOCK_TAGGER = TextFormatter.create()
+      .taggingCodeBlocks(CODE_BLOCK_LANGUAGE);
+  private static final TextFormatter SPACE_NORMALIZER = TextFormatter.create()
+      .normalizingSpaces();
 
   /**
    * Strips all formatting from a String.
@@ -31,6 +24,23 @@ public class StringUtil {
     return me.ialistannen.javadocbot.util.StringUtil.stripFormatting(input);
   }
 
+  /**
+   * @param packageName The name of the package. Empty for the default package.
+   * @param name The simple name of the class
+   * @return The name of the class, prefixed with its package if it has one
+   */
+  public static String getQualifiedName(String packageName, String name) {
+    return packageName.isEmpty() ? name : packageName + "." + name;
+  }
+
+  /**
+   * @param javadocClass The {@link JavadocClass}
+   * @return The name of the class, prefixed with its package if it has one
+   */
+  public static String getQualifiedName(JavadocClass javadocClass) {
+    return getQualifiedName(javadocClass.getParentPackage().getName(), javadocClass.getName());
+  }
+
   /**
    * Truncates a string to the passed length, adding an ellipsis when needed.
    *
@@ -46,6 +56,17 @@ public class StringUtil {
     return string.substring(0, length - ellipsis.length()) + ellipsis;
   }
 
+  /**
+   * Creates a formatter for javadoc descriptions. It tags code blocks with
+   * {@value CODE_BLOCK_LANGUAGE} and truncates to the given length.
+   *
+   * @param length The maximum length of the formatted description
+   * @return A {@link TextFormatter} for descriptions
+   */
+  public static TextFormatter descriptionFormatter(int length) {
+    return CODE_BLOCK_TAGGER.truncatingTo(length);
+  }
+
   /**
    * Replaces the language for all code blocks.
    *
@@ -54,8 +75,7 @@ public class StringUtil {
    * language.
    */
   public static String changeCodeBlockLanguage(String inputMessage) {
-    Matcher matcher = CODE_BLOCK_PATTERN.matcher(inputMessage);
-    return matcher.replaceAll("```" + CODE_BLOCK_LANGUAGE + "$1");
+    return CODE_BLOCK_TAGGER.format(inputMessage);
   }
 
   /**
@@ -65,10 +85,11 @@ public class StringUtil {
    * @return The same string but all spaces converted to normal ones
    */
   public static String sanitizeSpaces(String string) {
-    String result = string;
-    for (Character spaceEquivalent : SPACE_EQUIVALENTS) {
-      result = result.replace(spaceEquivalent, ' ');
+    for (int i = 0; i < string.length(); i++) {
+      if (TextFormatter.isSpaceEquivalent(string.charAt(i))) {
+        return SPACE_NORMALIZER.format(string);
+      }
     }
-    return result;
+    return string;
   }
 }
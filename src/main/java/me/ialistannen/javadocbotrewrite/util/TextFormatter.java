@@ -0,0 +1,158 @@
+package me.ialistannen.javadocbotrewrite.util;
+
+/**
+ * Formats text in a single pass into a reused buffer.
+ *
+ * <p>Depending on its settings a formatter normalizes spaces, adds a language to code blocks and
+ * truncates the result. Truncating stops copying the input as soon as the limit is reached.
+ *
+ * <p>Formatters are immutable and thread safe.
+ */
+public class TextFormatter {
+
+  private static final int MAX_RETAINED_BUFFER_CAPACITY = 64 * 1024;
+  private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(
+      StringBuilder::new
+  );
+
+  private static final String CODE_BLOCK_FENCE = "```";
+  private static final String CODE_BLOCK_OPENING = "```\n";
+  private static final String CODE_BLOCK_CLOSING = "\n```";
+  private static final String ELLIPSIS = "...";
+
+  private final boolean normalizeSpaces;
+  private final String codeBlockLanguage;
+  private final int maxLength;
+
+  private TextFormatter(boolean normalizeSpaces, String codeBlockLanguage, int maxLength) {
+    this.normalizeSpaces = normalizeSpaces;
+    this.codeBlockLanguage = codeBlockLanguage;
+    this.maxLength = maxLength;
+  }
+
+  /**
+   * @return A formatter that does not change anything
+   */
+  public static TextFormatter create() {
+    return new TextFormatter(false, null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @return A copy of this formatter that converts all spaces to normal ones
+   */
+  public TextFormatter normalizingSpaces() {
+    return new TextFormatter(true, codeBlockLanguage, maxLength);
+  }
+
+  /**
+   * Code blocks are only tagged, if they have no language yet, i.e. start with {@code ```} and a
+   * line break.
+   *
+   * @param language The language to tag code blocks with
+   * @return A copy of this formatter that tags all code blocks with the language
+   */
+  public TextFormatter taggingCodeBlocks(String language) {
+    return new TextFormatter(normalizeSpaces, language, maxLength);
+  }
+
+  /**
+   * Texts that are as long as the length or longer are cut and end in an ellipsis, just like
+   * {@link StringUtil#truncateToSize(int, String)} does.
+   *
+   * @param length The maximum length of the result
+   * @return A copy of this formatter that truncates to the length
+   */
+  public TextFormatter truncatingTo(int length) {
+    return new TextFormatter(normalizeSpaces, codeBlockLanguage, length);
+  }
+
+  /**
+   * @param input The input to format
+   * @return The formatted input
+   */
+  public String format(String input) {
+    return format("", input);
+  }
+
+  /**
+   * Formats the input and puts the prefix in front of it. The prefix itself is not formatted,
+   * but counts towards the maximum length.
+   *
+   * @param prefix The prefix
+   * @param input The input to format
+   * @return The prefix followed by the formatted input
+   */
+  public String format(String prefix, String input) {
+    StringBuilder buffer = BUFFER.get();
+    buffer.setLength(0);
+
+    try {
+      buffer.append(prefix);
+      appendFormatted(buffer, input);
+
+      if (buffer.length() >= maxLength) {
+        buffer.setLength(maxLength - ELLIPSIS.length());
+        buffer.append(ELLIPSIS);
+      }
+      return buffer.toString();
+    } finally {
+      if (buffer.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+        BUFFER.remove();
+      }
+    }
+  }
+
+  private void appendFormatted(StringBuilder buffer, String input) {
+    boolean tagCodeBlocks = codeBlockLanguage != null;
+    int position = 0;
+
+    while (position < input.length() && buffer.length() < maxLength) {
+      if (tagCodeBlocks && input.startsWith(CODE_BLOCK_OPENING, position)) {
+        // a block needs at least one character between the opening and closing line break
+        int closing = input.indexOf(CODE_BLOCK_CLOSING, position + CODE_BLOCK_OPENING.length() + 1);
+        if (closing < 0) {
+          // no later opening can have a closing either
+          tagCodeBlocks = false;
+          continue;
+        }
+
+        buffer.append(CODE_BLOCK_FENCE).append(codeBlockLanguage);
+        int blockEnd = closing + CODE_BLOCK_CLOSING.length();
+        appendNormalized(buffer, input, position + CODE_BLOCK_FENCE.length(), blockEnd);
+        position = blockEnd;
+        continue;
+      }
+
+      buffer.append(normalize(input.charAt(position)));
+      position++;
+    }
+  }
+
+  private void appendNormalized(StringBuilder buffer, String input, int start, int end) {
+    for (int i = start; i < end && buffer.length() < maxLength; i++) {
+      buffer.append(normalize(input.charAt(i)));
+    }
+  }
+
+  private char normalize(char character) {
+    if (normalizeSpaces && isSpaceEquivalent(character)) {
+      return ' ';
+    }
+    return character;
+  }
+
+  /**
+   * @param character The character to check
+   * @return True if the character is displayed like a space, but is not a normal one
+   */
+  public static boolean isSpaceEquivalent(char character) {
+    switch (character) {
+      case '\u00A0': // no break space
+      case '\u2003': // EM space
+      case '\u200B': // 0 width space
+        return true;
+      default:
+        return false;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package me.ialistannen.javadocbotrewrite.util;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Slices text into chunks of a maximum length by index, without copying it.
+ *
+ * <p>A chunk ends before the last terminator that fits into it and the terminator itself is
+ * dropped. If there is no such terminator, the chunk is cut at the maximum length.
+ */
+public class TextSlicer {
+
+  /**
+   * Computes the boundaries of all chunks.
+   *
+   * @param text The text to slice
+   * @param maxLength The maximum length of a chunk. Must be positive.
+   * @param isTerminator Checks if the text can be broken at the given character
+   * @return The boundaries as {@code [start0, end0, start1, end1, ...]}. Ends are exclusive.
+   */
+  public static int[] sliceBoundaries(CharSequence text, int maxLength,
+      CharPredicate isTerminator) {
+
+    if (maxLength <= 0) {
+      throw new IllegalArgumentException("maxLength must be positive, was " + maxLength);
+    }
+    if (text.length() == 0) {
+      return new int[]{0, 0};
+    }
+
+    int[] boundaries = new int[2 * (text.length() / maxLength + 2)];
+    int count = 0;
+
+    int position = 0;
+    while (position < text.length()) {
+      int end = findChunkEnd(text, position, maxLength, isTerminator);
+
+      if (count + 2 > boundaries.length) {
+        boundaries = Arrays.copyOf(boundaries, boundaries.length * 2);
+      }
+      boundaries[count++] = position;
+      boundaries[count++] = end;
+
+      position = skipTerminator(text, end, isTerminator);
+    }
+
+    return Arrays.copyOf(boundaries, count);
+  }
+
+  /**
+   * Slices the text into read only views. No characters are copied until a view is turned into
+   * a String.
+   *
+   * @param text The text to slice
+   * @param maxLength The maximum length of a chunk. Must be positive.
+   * @param isTerminator Checks if the text can be broken at the given character
+   * @return The chunks
+   */
+  public static List<CharSequence> slice(CharSequence text, int maxLength,
+      CharPredicate isTerminator) {
+
+    int[] boundaries = sliceBoundaries(text, maxLength, isTerminator);
+    List<CharSequence> chunks = new ArrayList<>(boundaries.length / 2);
+    for (int i = 0; i < boundaries.length; i += 2) {
+      chunks.add(CharBuffer.wrap(text, boundaries[i], boundaries[i + 1]));
+    }
+    return chunks;
+  }
+
+  /**
+   * Finds the end of the longest chunk starting at {@code start} that fits into the capacity.
+   *
+   * @param text The text
+   * @param start The start of the chunk
+   * @param capacity The maximum length of the chunk
+   * @param isTerminator Checks if the text can be broken at the given character
+   * @return The exclusive end of the chunk
+   */
+  public static int findChunkEnd(CharSequence text, int start, int capacity,
+      CharPredicate isTerminator) {
+
+    int limit = start + capacity;
+    if (limit >= text.length()) {
+      return text.length();
+    }
+    // a terminator right after the chunk fits too, as it is dropped
+    for (int i = limit; i > start; i--) {
+      if (isTerminator.test(text.charAt(i))) {
+        return i;
+      }
+    }
+    return limit;
+  }
+
+  /**
+   * @param text The text
+   * @param position The end of a chunk
+   * @param isTerminator Checks if the text can be broken at the given character
+   * @return The start of the next chunk
+   */
+  public static int skipTerminator(CharSequence text, int position, CharPredicate isTerminator) {
+    if (position < text.length() && isTerminator.test(text.charAt(position))) {
+      return position + 1;
+    }
+    return position;
+  }
+}
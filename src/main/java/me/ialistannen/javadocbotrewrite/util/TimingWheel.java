@@ -0,0 +1,215 @@
+package me.ialistannen.javadocbotrewrite.util;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A hashed timing wheel for delayed tasks.
+ *
+ * <p>Scheduling is O(1): the task is put in a queue and sorted into the bucket of its tick by
+ * the ticker thread. Tasks are not run on the ticker thread, but handed to an {@link Executor},
+ * so slow tasks never delay others. Tasks run at most one tick late.
+ */
+public class TimingWheel {
+
+  private static final Logger LOGGER = Logger.getLogger("TimingWheel");
+
+  private final long tickNanos;
+  private final Bucket[] buckets;
+  private final int mask;
+  private final Executor executor;
+  private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final long startNanos = System.nanoTime();
+
+  /**
+   * Creates the wheel and starts its ticker thread.
+   *
+   * @param tick The duration of a single tick. The resolution of the wheel.
+   * @param bucketCount The amount of buckets. Rounded up to a power of two.
+   * @param executor The {@link Executor} to run due tasks on
+   */
+  public TimingWheel(Duration tick, int bucketCount, Executor executor) {
+    this.tickNanos = tick.toNanos();
+    this.executor = executor;
+
+    int size = Integer.highestOneBit(Math.max(2, bucketCount - 1)) << 1;
+    this.buckets = new Bucket[size];
+    for (int i = 0; i < size; i++) {
+      buckets[i] = new Bucket();
+    }
+    this.mask = size - 1;
+
+    Thread ticker = new Thread(this::run, "TimingWheel");
+    ticker.setDaemon(true);
+    ticker.start();
+  }
+
+  /**
+   * Schedules a task.
+   *
+   * @param delay The delay after which to run the task
+   * @param task The task to run
+   * @return The {@link Timeout} to cancel the task with
+   */
+  public Timeout schedule(Duration delay, Runnable task) {
+    Timeout timeout = new Timeout(task, System.nanoTime() - startNanos + delay.toNanos());
+    pending.incrementAndGet();
+    newTimeouts.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * @return The amount of scheduled tasks that did not run and were not cancelled yet
+   */
+  public int getPendingCount() {
+    return pending.get();
+  }
+
+  private void run() {
+    long tick = 0;
+    while (!Thread.currentThread().isInterrupted()) {
+      long deadline = (tick + 1) * tickNanos;
+      long sleepNanos = deadline - (System.nanoTime() - startNanos);
+      if (sleepNanos > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+
+      transferNewTimeouts(tick);
+      expire(buckets[(int) (tick & mask)], deadline);
+      tick++;
+    }
+  }
+
+  private void transferNewTimeouts(long currentTick) {
+    Timeout timeout;
+    while ((timeout = newTimeouts.poll()) != null) {
+      if (timeout.cancelled) {
+        continue;
+      }
+      // never schedule into the past, that bucket was already processed
+      long targetTick = Math.max(currentTick, timeout.deadlineNanos / tickNanos);
+      timeout.remainingRounds = (targetTick - currentTick) / buckets.length;
+      buckets[(int) (targetTick & mask)].add(timeout);
+    }
+  }
+
+  private void expire(Bucket bucket, long deadline) {
+    Timeout timeout = bucket.head;
+    while (timeout != null) {
+      Timeout next = timeout.next;
+
+      if (timeout.cancelled) {
+        bucket.remove(timeout);
+      } else if (timeout.remainingRounds <= 0 && timeout.deadlineNanos <= deadline) {
+        bucket.remove(timeout);
+        if (timeout.markDone()) {
+          pending.decrementAndGet();
+          submit(timeout.task);
+        }
+      } else {
+        timeout.remainingRounds--;
+      }
+
+      timeout = next;
+    }
+  }
+
+  private void submit(Runnable task) {
+    try {
+      executor.execute(task);
+    } catch (RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Could not run a due task", e);
+    }
+  }
+
+  /**
+   * A scheduled task.
+   */
+  public class Timeout {
+
+    private final Runnable task;
+    private final long deadlineNanos;
+    private long remainingRounds;
+    private volatile boolean cancelled;
+    private volatile boolean done;
+
+    private Timeout next;
+    private Timeout previous;
+
+    private Timeout(Runnable task, long deadlineNanos) {
+      this.task = task;
+      this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Cancels the task, if it did not run yet.
+     *
+     * @return True if the task was cancelled by this call
+     */
+    public boolean cancel() {
+      synchronized (this) {
+        if (done || cancelled) {
+          return false;
+        }
+        cancelled = true;
+      }
+      pending.decrementAndGet();
+      return true;
+    }
+
+    private synchronized boolean markDone() {
+      if (cancelled) {
+        return false;
+      }
+      done = true;
+      return true;
+    }
+  }
+
+  /**
+   * A doubly linked list of timeouts. Only accessed by the ticker thread.
+   */
+  private static class Bucket {
+
+    private Timeout head;
+    private Timeout tail;
+
+    private void add(Timeout timeout) {
+      timeout.previous = tail;
+      timeout.next = null;
+      if (tail == null) {
+        head = timeout;
+      } else {
+        tail.next = timeout;
+      }
+      tail = timeout;
+    }
+
+    private void remove(Timeout timeout) {
+      if (timeout.previous == null) {
+        head = timeout.next;
+      } else {
+        timeout.previous.next = timeout.next;
+      }
+      if (timeout.next == null) {
+        tail = timeout.previous;
+      } else {
+        timeout.next.previous = timeout.previous;
+      }
+      timeout.next = null;
+      timeout.previous = null;
+    }
+  }
+}
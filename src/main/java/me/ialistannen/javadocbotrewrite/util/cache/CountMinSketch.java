@@ -0,0 +1,120 @@
+package me.ialistannen.javadocbotrewrite.util.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A count-min sketch estimating how often a key was seen, in constant memory.
+ *
+ * <p>Estimates are never too low, but may be too high if keys collide in every row. Once the
+ * sum of all increments reaches the sample size, all counters are halved, so old popularity
+ * slowly fades.
+ *
+ * <p>This class is thread safe.
+ */
+public class CountMinSketch {
+
+  private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+  private final int width;
+  private final long sampleSize;
+  private final int[][] counters;
+  private long additions;
+
+  /**
+   * @param width The amount of counters per row. Rounded up to a power of two.
+   * @param sampleSize The amount of increments after which all counters are halved
+   */
+  public CountMinSketch(int width, long sampleSize) {
+    this.width = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+    this.sampleSize = sampleSize;
+    this.counters = new int[SEEDS.length][this.width];
+  }
+
+  /**
+   * Records one occurrence of the key.
+   *
+   * @param key The key
+   * @return The new estimate for the key
+   */
+  public synchronized int increment(String key) {
+    int hash = key.hashCode();
+    int estimate = Integer.MAX_VALUE;
+    for (int row = 0; row < SEEDS.length; row++) {
+      int index = indexOf(hash, row);
+      if (counters[row][index] < Integer.MAX_VALUE) {
+        counters[row][index]++;
+      }
+      estimate = Math.min(estimate, counters[row][index]);
+    }
+
+    if (++additions >= sampleSize) {
+      halve();
+    }
+    return estimate;
+  }
+
+  /**
+   * @param key The key
+   * @return The estimated amount of times the key was seen
+   */
+  public synchronized int estimate(String key) {
+    int hash = key.hashCode();
+    int estimate = Integer.MAX_VALUE;
+    for (int row = 0; row < SEEDS.length; row++) {
+      estimate = Math.min(estimate, counters[row][indexOf(hash, row)]);
+    }
+    return estimate;
+  }
+
+  private void halve() {
+    for (int[] row : counters) {
+      for (int i = 0; i < row.length; i++) {
+        row[i] >>>= 1;
+      }
+    }
+    additions /= 2;
+  }
+
+  private int indexOf(int hash, int row) {
+    int mixed = (hash ^ (hash >>> 16)) * SEEDS[row];
+    mixed ^= mixed >>> 15;
+    return mixed & (width - 1);
+  }
+
+  /**
+   * Writes the counters. The width must match when reading them back.
+   *
+   * @param output The output to write to
+   * @throws IOException If an error occurs while writing
+   */
+  public synchronized void writeTo(DataOutput output) throws IOException {
+    output.writeInt(width);
+    output.writeLong(additions);
+    for (int[] row : counters) {
+      for (int counter : row) {
+        output.writeInt(counter);
+      }
+    }
+  }
+
+  /**
+   * Reads counters written by {@link #writeTo(DataOutput)}.
+   *
+   * @param input The input to read from
+   * @throws IOException If an error occurs while reading or the width does not match
+   */
+  public synchronized void readFrom(DataInput input) throws IOException {
+    int storedWidth = input.readInt();
+    if (storedWidth != width) {
+      throw new IOException("Sketch width " + storedWidth + " does not match " + width);
+    }
+    additions = input.readLong();
+    for (int[] row : counters) {
+      for (int i = 0; i < row.length; i++) {
+        row[i] = input.readInt();
+      }
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package me.ialistannen.javadocbotrewrite.util.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread safe cache evicting the least recently used entries once the total weight of all
+ * entries exceeds a budget.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class LruCache<K, V> {
+
+  private final Map<K, Weighted<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final ToLongFunction<V> weigher;
+  private final long maxWeight;
+  private long currentWeight;
+  private long epoch;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param maxWeight The maximum total weight of all entries
+   * @param weigher Computes the weight of a value, e.g. its approximate size in bytes
+   */
+  public LruCache(long maxWeight, ToLongFunction<V> weigher) {
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+  }
+
+  /**
+   * Returns the cached value or computes and caches it.
+   *
+   * <p>The loader is called without holding any lock, so two threads missing at the same time
+   * may both compute the value. A value computed while the cache was invalidated is returned,
+   * but not cached.
+   *
+   * @param key The key
+   * @param loader The function computing the value on a miss
+   * @return The cached or computed value
+   */
+  public V get(K key, Function<K, V> loader) {
+    long loadEpoch;
+    synchronized (entries) {
+      Weighted<V> cached = entries.get(key);
+      if (cached != null) {
+        hits.increment();
+        return cached.value;
+      }
+      loadEpoch = epoch;
+    }
+    misses.increment();
+
+    V value = loader.apply(key);
+    put(key, value, loadEpoch);
+    return value;
+  }
+
+  /**
+   * Caches a value. Values heavier than the whole budget are not cached.
+   *
+   * @param key The key
+   * @param value The value
+   */
+  public void put(K key, V value) {
+    synchronized (entries) {
+      put(key, value, epoch);
+    }
+  }
+
+  private void put(K key, V value, long expectedEpoch) {
+    long weight = weigher.applyAsLong(value);
+    if (weight > maxWeight) {
+      return;
+    }
+
+    synchronized (entries) {
+      if (epoch != expectedEpoch) {
+        return;
+      }
+      Weighted<V> previous = entries.put(key, new Weighted<>(value, weight));
+      if (previous != null) {
+        currentWeight -= previous.weight;
+      }
+      currentWeight += weight;
+
+      Iterator<Weighted<V>> iterator = entries.values().iterator();
+      while (currentWeight > maxWeight && iterator.hasNext()) {
+        currentWeight -= iterator.next().weight;
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void invalidateAll() {
+    synchronized (entries) {
+      entries.clear();
+      currentWeight = 0;
+      epoch++;
+    }
+  }
+
+  /**
+   * @return The amount of cached entries
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * @return The total weight of all cached entries
+   */
+  public long getWeight() {
+    synchronized (entries) {
+      return currentWeight;
+    }
+  }
+
+  /**
+   * @return The amount of lookups that were answered from the cache
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return The amount of lookups that needed to compute the value
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "LruCache{"
+        + "size=" + size()
+        + ", weight=" + getWeight() + "/" + maxWeight
+        + ", hits=" + getHitCount()
+        + ", misses=" + getMissCount()
+        + '}';
+  }
+
+  private static class Weighted<V> {
+
+    private final V value;
+    private final long weight;
+
+    private Weighted(V value, long weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package me.ialistannen.javadocbotrewrite.util.cache;
+
+import java.util.Objects;
+
+/**
+ * The key of a memoized query. It contains the generation of the index the query was answered
+ * with, so results computed against old sources are never found again.
+ */
+public class QueryKey {
+
+  private final long generation;
+  private final QueryType type;
+  private final String query;
+
+  /**
+   * @param generation The generation of the index
+   * @param type The {@link QueryType}
+   * @param query The query. Will be normalized.
+   */
+  public QueryKey(long generation, QueryType type, String query) {
+    this.generation = generation;
+    this.type = type;
+    this.query = normalize(query);
+  }
+
+  /**
+   * Trims the query and collapses all runs of whitespace into a single space.
+   *
+   * @param query The query
+   * @return The normalized query
+   */
+  public static String normalize(String query) {
+    StringBuilder result = new StringBuilder(query.length());
+    boolean lastWasSpace = false;
+
+    for (int i = 0; i < query.length(); i++) {
+      char character = query.charAt(i);
+      if (Character.isWhitespace(character)) {
+        lastWasSpace = result.length() > 0;
+        continue;
+      }
+      if (lastWasSpace) {
+        result.append(' ');
+        lastWasSpace = false;
+      }
+      result.append(character);
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * @return The normalized query
+   */
+  public String getQuery() {
+    return query;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    QueryKey queryKey = (QueryKey) o;
+    return generation == queryKey.generation
+        && type == queryKey.type
+        && Objects.equals(query, queryKey.query);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(generation, type, query);
+  }
+
+  @Override
+  public String toString() {
+    return "QueryKey{"
+        + "generation=" + generation
+        + ", type=" + type
+        + ", query='" + query + '\''
+        + '}';
+  }
+
+  /**
+   * The kind of a query.
+   */
+  public enum QueryType {
+    CLASSES_ENDING_IN, PACKAGE
+  }
+}
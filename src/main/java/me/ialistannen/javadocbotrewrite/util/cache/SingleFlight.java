@@ -0,0 +1,110 @@
+package me.ialistannen.javadocbotrewrite.util.cache;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent computations of the same key.
+ *
+ * <p>The first caller for a key computes the value, everybody asking for the same key while it
+ * is running waits for and shares that result. Nothing is kept once the computation finished.
+ *
+ * <p>Failures are only shared if they belong to the lookup. If the first caller was interrupted
+ * or cancelled, e.g. because its own timeout passed, the waiting callers compute the value again.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Computes the value or joins the computation already running for the key.
+   *
+   * @param key The key
+   * @param computation The computation
+   * @return The computed value
+   * @throws RuntimeException if the computation threw one
+   */
+  public V execute(K key, Supplier<V> computation) {
+    while (true) {
+      CompletableFuture<V> ownFuture = new CompletableFuture<>();
+      CompletableFuture<V> runningFuture = inFlight.putIfAbsent(key, ownFuture);
+
+      if (runningFuture != null) {
+        try {
+          return join(runningFuture);
+        } catch (AbandonedException e) {
+          continue;
+        }
+      }
+
+      V value;
+      try {
+        value = computation.get();
+      } catch (Throwable e) {
+        // removed first, so callers computing again do not find the failed future
+        inFlight.remove(key, ownFuture);
+        ownFuture.completeExceptionally(isInterruption(e) ? new AbandonedException() : e);
+        throw e;
+      }
+      inFlight.remove(key, ownFuture);
+      ownFuture.complete(value);
+      return value;
+    }
+  }
+
+  /**
+   * @param error The error the computation failed with
+   * @return True if it failed because the computing thread was interrupted or cancelled
+   */
+  private static boolean isInterruption(Throwable error) {
+    if (Thread.currentThread().isInterrupted()) {
+      return true;
+    }
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof InterruptedException || cause instanceof InterruptedIOException
+          || cause instanceof CancellationException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return The amount of computations currently running
+   */
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  private V join(CompletableFuture<V> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Tells the waiting callers that the computation was abandoned and must be repeated.
+   */
+  private static class AbandonedException extends RuntimeException {
+
+    private AbandonedException() {
+      super("The computing caller was interrupted", null, false, false);
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package me.ialistannen.javadocbotrewrite.util.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import me.ialistannen.javadocbot.javadoc.JavadocManager;
+
+/**
+ * Runs a lookup against several {@link JavadocManager}s and merges their results.
+ *
+ * <p>Several sources are queried in parallel. Results are merged in the order of the sources, so
+ * the same lookup always returns the same results, deduplicated by their canonical url. Merging
+ * stops as soon as the requested amount of results was found. Lookups of later sources that did
+ * not start yet are skipped, running ones are left to finish, as interrupting the library in the
+ * middle of fetching a page could leave its lazily filled state incomplete.
+ */
+public class FanOut {
+
+  /**
+   * No limit on the amount of results.
+   */
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+
+  private final ExecutorService executor;
+
+  /**
+   * @param threads The amount of threads to query sources with
+   */
+  public FanOut(int threads) {
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+      Thread thread = new Thread(runnable, "Lookup-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Queries all sources and merges the results.
+   *
+   * @param managers The {@link JavadocManager}s to query
+   * @param lookup The lookup to perform on each {@link JavadocManager}
+   * @param urlFunction Returns the url of a result, used to detect duplicates
+   * @param limit The amount of results after which the lookup may stop
+   * @param <T> The type of the results
+   * @return The merged results in source order, at most {@code limit} many. Unmodifiable.
+   */
+  public <T> List<T> collect(List<JavadocManager> managers,
+      Function<JavadocManager, ? extends Collection<T>> lookup,
+      Function<T, String> urlFunction, int limit) {
+
+    Map<Object, T> results = new LinkedHashMap<>();
+
+    if (managers.size() == 1) {
+      addAll(results, lookup.apply(managers.get(0)), urlFunction, limit);
+      return toList(results);
+    }
+
+    List<Future<Collection<T>>> futures = new ArrayList<>();
+    for (JavadocManager manager : managers) {
+      futures.add(executor.submit(() -> lookup.apply(manager)));
+    }
+
+    try {
+      for (int i = 0; i < futures.size() && results.size() < limit; i++) {
+        addAll(results, futures.get(i).get(), urlFunction, limit);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while querying the sources", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IllegalStateException("A source failed to answer", e.getCause());
+    } finally {
+      // skip sources that are no longer needed, but do not interrupt running lookups
+      futures.forEach(future -> future.cancel(false));
+    }
+
+    return toList(results);
+  }
+
+  private static <T> void addAll(Map<Object, T> results, Collection<T> values,
+      Function<T, String> urlFunction, int limit) {
+    for (T value : values) {
+      if (results.size() >= limit) {
+        return;
+      }
+      String url = urlFunction.apply(value);
+      results.putIfAbsent(url == null ? value : canonicalUrl(url), value);
+    }
+  }
+
+  private static <T> List<T> toList(Map<Object, T> results) {
+    return Collections.unmodifiableList(new ArrayList<>(results.values()));
+  }
+
+  /**
+   * Canonicalizes an url, so the same page served over http and https is considered equal.
+   *
+   * @param url The url
+   * @return The canonical form
+   */
+  private static String canonicalUrl(String url) {
+    int schemeEnd = url.indexOf("://");
+    return schemeEnd < 0 ? url : url.substring(schemeEnd + 3);
+  }
+}
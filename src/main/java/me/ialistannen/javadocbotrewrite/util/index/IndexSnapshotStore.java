@@ -0,0 +1,301 @@
+package me.ialistannen.javadocbotrewrite.util.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import me.ialistannen.javadocbot.javadoc.JavadocManager;
+import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
+import me.ialistannen.javadocbot.javadoc.model.JavadocMethod;
+import me.ialistannen.javadocbot.javadoc.model.Package;
+import me.ialistannen.javadocbotrewrite.util.DaemonThreadFactory;
+import me.ialistannen.javadocbotrewrite.util.index.SourceSnapshot.ClassEntry;
+import me.ialistannen.javadocbotrewrite.util.index.SourceSnapshot.PackageEntry;
+
+/**
+ * Stores {@link SourceSnapshot}s of indexed sources on disk.
+ *
+ * <p>A snapshot file has the following layout. Strings are written as modified UTF-8, as by
+ * {@link DataOutputStream#writeUTF(String)}.
+ * <pre>
+ *   int     magic number
+ *   short   schema version
+ *   UTF     library version, a hash of the JavadocBotBase model classes
+ *   UTF     base url of the source
+ *   long    creation time in epoch milliseconds
+ *   int     length of the body, followed by the deflated body:
+ *     int     package count, followed by for every package:
+ *       UTF     name
+ *       UTF     url, relative to the base url if it starts with it
+ *     int     class count, followed by for every class:
+ *       int     index of its package
+ *       UTF     simple name
+ *       UTF     url, relative to the base url if it starts with it
+ * </pre>
+ *
+ * <p>Snapshots with another schema version, library version or source are ignored. If the
+ * library version can not be determined, snapshots are disabled.
+ */
+public class IndexSnapshotStore {
+
+  private static final Logger LOGGER = Logger.getLogger("IndexSnapshotStore");
+
+  private static final int MAGIC = 0x4A444958;
+  private static final short SCHEMA_VERSION = 2;
+  private static final int MAX_ENTRIES = 1_000_000;
+  private static final String LIBRARY_VERSION = computeLibraryVersion();
+
+  private final Path directory;
+  private final long maxAgeMillis;
+  private final ExecutorService writer;
+
+  /**
+   * @param directory The directory to store the snapshots in. Null to disable snapshots.
+   * @param maxAge The maximum age of a snapshot before it is considered stale
+   */
+  public IndexSnapshotStore(Path directory, Duration maxAge) {
+    this.directory = directory;
+    this.maxAgeMillis = maxAge.toMillis();
+    this.writer = Executors.newSingleThreadExecutor(
+        new DaemonThreadFactory("IndexSnapshotWriter")
+    );
+  }
+
+  /**
+   * @return A store that never loads or saves anything
+   */
+  public static IndexSnapshotStore none() {
+    return new IndexSnapshotStore(null, Duration.ZERO);
+  }
+
+  /**
+   * Loads the snapshot for the given url, if there is a valid and fresh one.
+   *
+   * @param url The base url of the source
+   * @return The loaded {@link SourceSnapshot}, if any
+   */
+  public Optional<SourceSnapshot> load(String url) {
+    if (directory == null || LIBRARY_VERSION == null) {
+      return Optional.empty();
+    }
+    Path file = getSnapshotFile(url);
+    if (Files.notExists(file)) {
+      return Optional.empty();
+    }
+
+    try (DataInputStream inputStream = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+
+      if (inputStream.readInt() != MAGIC || inputStream.readShort() != SCHEMA_VERSION) {
+        LOGGER.info("Ignoring snapshot with an unknown schema for '" + url + "'");
+        return Optional.empty();
+      }
+      if (!LIBRARY_VERSION.equals(inputStream.readUTF())) {
+        LOGGER.info("Ignoring snapshot written by another library version for '" + url + "'");
+        return Optional.empty();
+      }
+      if (!url.equals(inputStream.readUTF())) {
+        LOGGER.info("Ignoring snapshot for a different source than '" + url + "'");
+        return Optional.empty();
+      }
+
+      long createdAt = inputStream.readLong();
+      if (System.currentTimeMillis() - createdAt > maxAgeMillis) {
+        LOGGER.info("Ignoring stale snapshot for '" + url + "'");
+        return Optional.empty();
+      }
+
+      int maxBodyLength = (int) Math.min(Files.size(file), Integer.MAX_VALUE);
+      byte[] body = new byte[readCount(inputStream, maxBodyLength)];
+      inputStream.readFully(body);
+
+      try (DataInputStream bodyStream = new DataInputStream(
+          new InflaterInputStream(new ByteArrayInputStream(body)))) {
+        return Optional.of(readBody(bodyStream, url, createdAt));
+      }
+    } catch (IOException | RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Could not load the snapshot for '" + url + "'", e);
+      return Optional.empty();
+    }
+  }
+
+  private static SourceSnapshot readBody(DataInputStream inputStream, String url,
+      long createdAt) throws IOException {
+    int packageCount = readCount(inputStream, MAX_ENTRIES);
+    List<PackageEntry> packages = new ArrayList<>(packageCount);
+    for (int i = 0; i < packageCount; i++) {
+      String name = inputStream.readUTF();
+      packages.add(new PackageEntry(name, toAbsolute(url, inputStream.readUTF())));
+    }
+
+    int classCount = readCount(inputStream, MAX_ENTRIES);
+    List<ClassEntry> classes = new ArrayList<>(classCount);
+    for (int i = 0; i < classCount; i++) {
+      int packageIndex = inputStream.readInt();
+      if (packageIndex < 0 || packageIndex >= packages.size()) {
+        throw new IOException("Invalid package index " + packageIndex);
+      }
+      String name = inputStream.readUTF();
+      classes.add(new ClassEntry(
+          packages.get(packageIndex), name, toAbsolute(url, inputStream.readUTF())
+      ));
+    }
+
+    return new SourceSnapshot(url, createdAt, packages, classes);
+  }
+
+  private static int readCount(DataInputStream inputStream, int max) throws IOException {
+    int count = inputStream.readInt();
+    if (count < 0 || count > max) {
+      throw new IOException("Invalid count " + count);
+    }
+    return count;
+  }
+
+  /**
+   * Takes a snapshot of an indexed {@link JavadocManager} and saves it in the background.
+   *
+   * @param manager The indexed {@link JavadocManager}
+   */
+  public void saveAsync(JavadocManager manager) {
+    if (directory == null || LIBRARY_VERSION == null) {
+      return;
+    }
+    writer.submit(() -> save(manager));
+  }
+
+  private void save(JavadocManager manager) {
+    String url = manager.getSettings().getBaseUrl();
+    try {
+      SourceSnapshot snapshot = SourceSnapshot.of(manager);
+      Files.createDirectories(directory);
+
+      Path file = getSnapshotFile(url);
+      Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+      byte[] body = writeBody(snapshot);
+
+      try (DataOutputStream outputStream = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        outputStream.writeInt(MAGIC);
+        outputStream.writeShort(SCHEMA_VERSION);
+        outputStream.writeUTF(LIBRARY_VERSION);
+        outputStream.writeUTF(url);
+        outputStream.writeLong(snapshot.getCreatedAt());
+        outputStream.writeInt(body.length);
+        outputStream.write(body);
+      }
+
+      Files.move(
+          temporaryFile, file,
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE
+      );
+    } catch (IOException | RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Could not save the snapshot for '" + url + "'", e);
+    }
+  }
+
+  private static byte[] writeBody(SourceSnapshot snapshot) throws IOException {
+    String url = snapshot.getUrl();
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    try (DataOutputStream outputStream = new DataOutputStream(new DeflaterOutputStream(body))) {
+      Map<PackageEntry, Integer> packageIndices = new HashMap<>();
+      outputStream.writeInt(snapshot.getPackages().size());
+      for (PackageEntry entry : snapshot.getPackages()) {
+        packageIndices.put(entry, packageIndices.size());
+        outputStream.writeUTF(entry.getName());
+        outputStream.writeUTF(toRelative(url, entry.getUrl()));
+      }
+
+      outputStream.writeInt(snapshot.getClasses().size());
+      for (ClassEntry entry : snapshot.getClasses()) {
+        outputStream.writeInt(packageIndices.get(entry.getPackage()));
+        outputStream.writeUTF(entry.getName());
+        outputStream.writeUTF(toRelative(url, entry.getUrl()));
+      }
+    }
+    return body.toByteArray();
+  }
+
+  private static String toRelative(String baseUrl, String url) {
+    if (url == null) {
+      return "";
+    }
+    return url.startsWith(baseUrl) ? url.substring(baseUrl.length()) : url;
+  }
+
+  private static String toAbsolute(String baseUrl, String url) {
+    return url.contains("://") ? url : baseUrl + url;
+  }
+
+  private Path getSnapshotFile(String url) {
+    return directory.resolve(toHex(sha1(url.getBytes(StandardCharsets.UTF_8))) + ".snapshot");
+  }
+
+  /**
+   * Hashes the class files of the library model, so snapshots are not read by another version of
+   * it, which might name or link things differently.
+   *
+   * @return The library version or null if the class files could not be read
+   */
+  private static String computeLibraryVersion() {
+    ByteArrayOutputStream classFiles = new ByteArrayOutputStream();
+    for (Class<?> type : new Class<?>[]{
+        JavadocManager.class, JavadocClass.class, JavadocMethod.class, Package.class}) {
+
+      String resource = type.getSimpleName() + ".class";
+      try (InputStream inputStream = type.getResourceAsStream(resource)) {
+        if (inputStream == null) {
+          return null;
+        }
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+          classFiles.write(buffer, 0, read);
+        }
+      } catch (IOException e) {
+        LOGGER.log(Level.WARNING, "Could not read the library class " + type.getName(), e);
+        return null;
+      }
+    }
+    return toHex(sha1(classFiles.toByteArray()));
+  }
+
+  private static byte[] sha1(byte[] data) {
+    try {
+      return MessageDigest.getInstance("SHA-1").digest(data);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is not supported by this JVM", e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+}
@@ -0,0 +1,198 @@
+package me.ialistannen.javadocbotrewrite.util.index;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.ialistannen.javadocbot.javadoc.JavadocManager;
+import me.ialistannen.javadocbotrewrite.util.DaemonThreadFactory;
+
+/**
+ * Indexes several {@link JavadocManager}s concurrently, at most a fixed amount at a time.
+ *
+ * <p>Every source has its own timeout, measured from the moment it starts indexing, so sources
+ * queued behind slow ones are not penalized. A source taking longer is interrupted and abandoned:
+ * the library might ignore the interrupt, so its thread keeps running, but it no longer counts
+ * against the limit and can not block the next source or later calls.
+ */
+public class ParallelIndexer {
+
+  private static final int WAITING = 0;
+  private static final int RUNNING = 1;
+  private static final int DONE = 2;
+
+  private final ExecutorService executor;
+  private final ScheduledExecutorService timeoutScheduler;
+  private final Semaphore permits;
+  private final long timeoutNanos;
+
+  /**
+   * @param threads The maximum amount of sources to index at the same time
+   * @param timeout The maximum time a single source may take to index, once it started
+   */
+  public ParallelIndexer(int threads, Duration timeout) {
+    this.executor = Executors.newCachedThreadPool(new DaemonThreadFactory("Indexer"));
+    this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(
+        new DaemonThreadFactory("IndexerTimeout")
+    );
+    this.permits = new Semaphore(Math.max(1, threads));
+    this.timeoutNanos = timeout.toNanos();
+  }
+
+  /**
+   * Indexes all passed {@link JavadocManager}s and waits until every one of them finished, failed
+   * or timed out.
+   *
+   * @param managers The {@link JavadocManager}s to index
+   * @return The errors keyed by the base url of the failed source. Empty if all succeeded.
+   */
+  public Map<String, Throwable> indexAll(Collection<JavadocManager> managers) {
+    List<IndexingTask> tasks = new ArrayList<>();
+    for (JavadocManager manager : managers) {
+      IndexingTask task = new IndexingTask(manager);
+      tasks.add(task);
+      task.start();
+    }
+
+    awaitAll(tasks);
+
+    Map<String, Throwable> errors = new LinkedHashMap<>();
+    for (IndexingTask task : tasks) {
+      Throwable error = getResult(task);
+      if (error != null) {
+        errors.put(task.manager.getSettings().getBaseUrl(), error);
+      }
+    }
+
+    return errors;
+  }
+
+  /**
+   * Waits until all tasks are done. Abandons the rest if the calling thread is interrupted.
+   *
+   * @param tasks The tasks
+   */
+  private void awaitAll(List<IndexingTask> tasks) {
+    for (IndexingTask task : tasks) {
+      try {
+        task.result.get();
+      } catch (ExecutionException ignored) {
+        // reported by getResult
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        for (IndexingTask other : tasks) {
+          other.abandon(e);
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * @param task The task, which is done
+   * @return The error or null if the task completed normally
+   */
+  private Throwable getResult(IndexingTask task) {
+    try {
+      task.result.getNow(null);
+      return null;
+    } catch (CompletionException e) {
+      return e.getCause();
+    }
+  }
+
+  private class IndexingTask implements Runnable {
+
+    private final JavadocManager manager;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+    private volatile Future<?> future;
+
+    private IndexingTask(JavadocManager manager) {
+      this.manager = manager;
+    }
+
+    private void start() {
+      future = executor.submit(this);
+    }
+
+    @Override
+    public void run() {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        result.completeExceptionally(e);
+        return;
+      }
+      if (!state.compareAndSet(WAITING, RUNNING)) {
+        // abandoned while waiting for a permit
+        permits.release();
+        return;
+      }
+
+      ScheduledFuture<?> timeoutTask = timeoutScheduler.schedule(
+          this::timeOut, timeoutNanos, TimeUnit.NANOSECONDS
+      );
+      try {
+        manager.index();
+        result.complete(null);
+      } catch (Throwable e) {
+        result.completeExceptionally(e);
+      } finally {
+        timeoutTask.cancel(false);
+        finish();
+      }
+    }
+
+    /**
+     * Abandons the task if it is still running once its timeout passed.
+     */
+    private void timeOut() {
+      abandon(new TimeoutException("Indexing took longer than " + Duration.ofNanos(timeoutNanos)));
+    }
+
+    /**
+     * Abandons the task if it is not done yet, interrupting it if it runs.
+     *
+     * @param reason The error to complete the task with
+     */
+    private void abandon(Throwable reason) {
+      if (!finish()) {
+        return;
+      }
+      result.completeExceptionally(reason);
+      Future<?> runningFuture = future;
+      if (runningFuture != null) {
+        runningFuture.cancel(true);
+      }
+    }
+
+    /**
+     * Marks the task as done, returning its permit if it held one. Called when it completes or
+     * when it is abandoned, whichever comes first.
+     *
+     * @return True if the task was not done before
+     */
+    private boolean finish() {
+      int previousState = state.getAndSet(DONE);
+      if (previousState == RUNNING) {
+        permits.release();
+      }
+      return previousState != DONE;
+    }
+  }
+}
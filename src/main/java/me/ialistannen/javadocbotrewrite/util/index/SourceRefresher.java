@@ -0,0 +1,223 @@
+package me.ialistannen.javadocbotrewrite.util.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Periodically checks whether the javadoc of a source changed, using conditional requests for
+ * its package and class lists.
+ *
+ * <p>Only the lists are requested. Servers answering with {@code 304 Not Modified} cost a single
+ * round trip per list. Servers ignoring the conditional headers are compared by a checksum of
+ * the list instead.
+ *
+ * <p>The first check of a source has nothing to compare with, so it compares the modification
+ * time of the lists with the time the source was indexed. If the server does not send one, the
+ * source is considered changed, as a change since indexing can not be ruled out.
+ */
+public class SourceRefresher {
+
+  private static final Logger LOGGER = Logger.getLogger("SourceRefresher");
+
+  private static final List<String> CHANGE_INDICATORS = Arrays.asList(
+      "package-list", "allclasses-noframe.html"
+  );
+  private static final int TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(30);
+
+  private final Supplier<List<String>> urlSupplier;
+  private final Consumer<String> changeHandler;
+  private final Function<String, Long> indexedAtFunction;
+  private final Map<String, Validator> validators = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+      runnable -> {
+        Thread thread = new Thread(runnable, "SourceRefresher");
+        thread.setDaemon(true);
+        return thread;
+      }
+  );
+
+  /**
+   * @param urlSupplier Supplies the base urls of all current sources
+   * @param changeHandler Called with the base url of every source that changed. Runs on the
+   * refresher thread, so it may take a while.
+   * @param indexedAtFunction Returns the time in epoch milliseconds the current index of the
+   * source with the given base url was started at, or null if it is not known
+   */
+  public SourceRefresher(Supplier<List<String>> urlSupplier, Consumer<String> changeHandler,
+      Function<String, Long> indexedAtFunction) {
+    this.urlSupplier = urlSupplier;
+    this.changeHandler = changeHandler;
+    this.indexedAtFunction = indexedAtFunction;
+  }
+
+  /**
+   * Starts checking all sources in the given interval.
+   *
+   * @param interval The interval between two checks
+   */
+  public void start(Duration interval) {
+    executor.scheduleWithFixedDelay(
+        this::checkAll, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS
+    );
+  }
+
+  /**
+   * Stops checking.
+   */
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Checks all sources once on the calling thread, calling the change handler for every changed
+   * one.
+   */
+  public void checkAll() {
+    for (String baseUrl : urlSupplier.get()) {
+      try {
+        Long indexedAt = indexedAtFunction.apply(baseUrl);
+        if (hasChanged(baseUrl)) {
+          LOGGER.info("Javadoc at '" + baseUrl + "' changed, re-indexing it");
+          changeHandler.accept(baseUrl);
+
+          if (Objects.equals(indexedAt, indexedAtFunction.apply(baseUrl))) {
+            // not re-indexed, so compare with the old index again next time
+            forget(baseUrl);
+          }
+        }
+      } catch (RuntimeException e) {
+        LOGGER.log(Level.WARNING, "Error refreshing '" + baseUrl + "'", e);
+      }
+    }
+  }
+
+  /**
+   * Checks whether any of the lists of a source changed since the last check or, for the first
+   * check, since the source was indexed.
+   *
+   * @param baseUrl The base url of the source
+   * @return True if the source changed
+   */
+  private boolean hasChanged(String baseUrl) {
+    boolean changed = false;
+    String normalizedBase = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+    Long indexedAt = indexedAtFunction.apply(baseUrl);
+
+    for (String indicator : CHANGE_INDICATORS) {
+      String url = normalizedBase + indicator;
+      try {
+        changed |= hasChanged(url, validators.get(url), indexedAt);
+      } catch (IOException e) {
+        LOGGER.log(Level.FINE, "Could not check '" + url + "'", e);
+      }
+    }
+
+    return changed;
+  }
+
+  /**
+   * Drops the recorded state of the lists of a source.
+   *
+   * @param baseUrl The base url of the source
+   */
+  private void forget(String baseUrl) {
+    String normalizedBase = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+    for (String indicator : CHANGE_INDICATORS) {
+      validators.remove(normalizedBase + indicator);
+    }
+  }
+
+  private boolean hasChanged(String url, Validator previous, Long indexedAt) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setConnectTimeout(TIMEOUT_MILLIS);
+    connection.setReadTimeout(TIMEOUT_MILLIS);
+
+    if (previous != null && previous.etag != null) {
+      connection.setRequestProperty("If-None-Match", previous.etag);
+    }
+    if (previous != null && previous.lastModified != 0) {
+      connection.setIfModifiedSince(previous.lastModified);
+    }
+
+    try {
+      int responseCode = connection.getResponseCode();
+      if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+        return false;
+      }
+      if (responseCode != HttpURLConnection.HTTP_OK) {
+        return false;
+      }
+
+      Validator current = new Validator(
+          connection.getHeaderField("ETag"),
+          connection.getLastModified(),
+          checksum(connection)
+      );
+      validators.put(url, current);
+
+      if (previous == null) {
+        return indexedAt == null || current.lastModified == 0 || current.lastModified > indexedAt;
+      }
+      return previous.checksum != current.checksum;
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private long checksum(HttpURLConnection connection) throws IOException {
+    CRC32 crc = new CRC32();
+    byte[] buffer = new byte[8192];
+
+    try (InputStream inputStream = connection.getInputStream()) {
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        crc.update(buffer, 0, read);
+      }
+    }
+
+    return crc.getValue();
+  }
+
+  /**
+   * The state of a list at the time it was last fetched.
+   */
+  private static class Validator {
+
+    private final String etag;
+    private final long lastModified;
+    private final long checksum;
+
+    private Validator(String etag, long lastModified, long checksum) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.checksum = checksum;
+    }
+
+    @Override
+    public String toString() {
+      return "Validator{"
+          + "etag='" + etag + '\''
+          + ", lastModified=" + lastModified
+          + ", checksum=" + checksum
+          + '}';
+    }
+  }
+}
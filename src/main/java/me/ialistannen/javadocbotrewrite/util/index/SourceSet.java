@@ -0,0 +1,161 @@
+package me.ialistannen.javadocbotrewrite.util.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import me.ialistannen.javadocbot.javadoc.JavadocManager;
+import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
+import me.ialistannen.javadocbotrewrite.util.StringUtil;
+
+/**
+ * An immutable snapshot of all sources javadoc is fetched from: the base path, the swapping
+ * manager set via the base url and everything derived from them.
+ *
+ * <p>Instances are never modified. Changing the sources creates a new set with the next
+ * generation, which can then be published in one step.
+ */
+public class SourceSet {
+
+  private final List<JavadocManager> basePath;
+  private final JavadocManager swappingManager;
+  private final List<JavadocManager> allManagers;
+  private final SuffixIndex<JavadocClass> classIndex;
+  private final TrigramIndex classNameIndex;
+  private final Map<String, Integer> classCounts;
+  private final long generation;
+
+  private SourceSet(List<JavadocManager> basePath, JavadocManager swappingManager,
+      long generation) {
+    this.basePath = Collections.unmodifiableList(new ArrayList<>(basePath));
+    this.swappingManager = swappingManager;
+    this.generation = generation;
+
+    List<JavadocManager> allManagers = new ArrayList<>(basePath);
+    allManagers.add(swappingManager);
+    this.allManagers = Collections.unmodifiableList(allManagers);
+
+    Map<String, Integer> classCounts = new LinkedHashMap<>();
+    this.classIndex = buildClassIndex(this.allManagers, classCounts);
+    this.classCounts = Collections.unmodifiableMap(classCounts);
+    this.classNameIndex = TrigramIndex.build(
+        classIndex.getAll().stream().map(JavadocClass::getName).collect(Collectors.toList())
+    );
+  }
+
+  /**
+   * Creates the first {@link SourceSet}.
+   *
+   * @param basePath The {@link JavadocManager}s of the base path
+   * @param swappingManager The {@link JavadocManager} for the base url
+   * @return The created {@link SourceSet}
+   */
+  public static SourceSet create(List<JavadocManager> basePath, JavadocManager swappingManager) {
+    return new SourceSet(basePath, swappingManager, 0);
+  }
+
+  /**
+   * @param basePath The new base path
+   * @return A new {@link SourceSet} of the next generation with the given base path
+   */
+  public SourceSet withBasePath(List<JavadocManager> basePath) {
+    return new SourceSet(basePath, swappingManager, generation + 1);
+  }
+
+  /**
+   * @param swappingManager The new swapping manager
+   * @return A new {@link SourceSet} of the next generation with the given swapping manager
+   */
+  public SourceSet withSwappingManager(JavadocManager swappingManager) {
+    return new SourceSet(basePath, swappingManager, generation + 1);
+  }
+
+  /**
+   * Replaces every {@link JavadocManager} with the same base url as the given one.
+   *
+   * @param replacement The new {@link JavadocManager} for that url
+   * @return A new {@link SourceSet} of the next generation with the manager replaced
+   */
+  public SourceSet withReplacedSource(JavadocManager replacement) {
+    String url = replacement.getSettings().getBaseUrl();
+
+    List<JavadocManager> newBasePath = new ArrayList<>();
+    for (JavadocManager manager : basePath) {
+      newBasePath.add(url.equals(manager.getSettings().getBaseUrl()) ? replacement : manager);
+    }
+    JavadocManager newSwappingManager = url.equals(swappingManager.getSettings().getBaseUrl())
+        ? replacement
+        : swappingManager;
+
+    return new SourceSet(newBasePath, newSwappingManager, generation + 1);
+  }
+
+  /**
+   * @return The {@link JavadocManager}s of the base path. Unmodifiable.
+   */
+  public List<JavadocManager> getBasePath() {
+    return basePath;
+  }
+
+  /**
+   * @return The {@link JavadocManager} for the base url
+   */
+  public JavadocManager getSwappingManager() {
+    return swappingManager;
+  }
+
+  /**
+   * @return The base path followed by the swapping manager. Unmodifiable.
+   */
+  public List<JavadocManager> getAllManagers() {
+    return allManagers;
+  }
+
+  /**
+   * @return The combined index over the fully qualified names of all classes
+   */
+  public SuffixIndex<JavadocClass> getClassIndex() {
+    return classIndex;
+  }
+
+  /**
+   * @return The similarity index over the simple names of all classes
+   */
+  public TrigramIndex getClassNameIndex() {
+    return classNameIndex;
+  }
+
+  /**
+   * @return The amount of classes of every source keyed by its base url. Unmodifiable.
+   */
+  public Map<String, Integer> getClassCounts() {
+    return classCounts;
+  }
+
+  /**
+   * @return The generation of this set. Increased by one for every change.
+   */
+  public long getGeneration() {
+    return generation;
+  }
+
+  private static SuffixIndex<JavadocClass> buildClassIndex(List<JavadocManager> managers,
+      Map<String, Integer> classCounts) {
+    List<JavadocClass> allClasses = new ArrayList<>();
+    for (JavadocManager manager : managers) {
+      // every name ends in the empty string, so this lists all classes of a manager
+      Collection<JavadocClass> classes = manager.getClassEndingIn("");
+      allClasses.addAll(classes);
+
+      String baseUrl = manager.getSettings().getBaseUrl();
+      if (baseUrl != null) {
+        classCounts.merge(baseUrl, classes.size(), Integer::sum);
+      }
+    }
+
+    return SuffixIndex.build(allClasses, StringUtil::getQualifiedName);
+  }
+}
@@ -0,0 +1,191 @@
+package me.ialistannen.javadocbotrewrite.util.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import me.ialistannen.javadocbot.javadoc.JavadocManager;
+import me.ialistannen.javadocbot.javadoc.model.JavadocClass;
+import me.ialistannen.javadocbot.javadoc.model.Package;
+import me.ialistannen.javadocbotrewrite.util.StringUtil;
+
+/**
+ * The names and urls of all packages and classes of a source, as stored by the
+ * {@link IndexSnapshotStore}.
+ *
+ * <p>This is no replacement for an indexed {@link JavadocManager}, as the library offers no way to
+ * rebuild its model from it. It is enough to link to a class while the source is indexed again,
+ * though.
+ */
+public class SourceSnapshot {
+
+  private final String url;
+  private final long createdAt;
+  private final List<PackageEntry> packages;
+  private final List<ClassEntry> classes;
+
+  /**
+   * @param url The base url of the source
+   * @param createdAt The creation time in epoch milliseconds
+   * @param packages All packages of the source
+   * @param classes All classes of the source
+   */
+  SourceSnapshot(String url, long createdAt, List<PackageEntry> packages,
+      List<ClassEntry> classes) {
+    this.url = url;
+    this.createdAt = createdAt;
+    this.packages = Collections.unmodifiableList(packages);
+    this.classes = Collections.unmodifiableList(classes);
+  }
+
+  /**
+   * Takes a snapshot of an indexed {@link JavadocManager}.
+   *
+   * @param manager The indexed {@link JavadocManager}
+   * @return The snapshot
+   */
+  public static SourceSnapshot of(JavadocManager manager) {
+    Map<String, PackageEntry> packages = new LinkedHashMap<>();
+    for (Package javadocPackage : manager.getAllPackages()) {
+      packages.put(
+          javadocPackage.getName(),
+          new PackageEntry(javadocPackage.getName(), javadocPackage.getUrl())
+      );
+    }
+
+    List<ClassEntry> classes = new ArrayList<>();
+    for (JavadocClass javadocClass : manager.getClassEndingIn("")) {
+      Package parent = javadocClass.getParentPackage();
+      PackageEntry packageEntry = packages.computeIfAbsent(
+          parent.getName(), name -> new PackageEntry(name, parent.getUrl())
+      );
+      classes.add(new ClassEntry(packageEntry, javadocClass.getName(), javadocClass.getUrl()));
+    }
+
+    return new SourceSnapshot(
+        manager.getSettings().getBaseUrl(), System.currentTimeMillis(),
+        new ArrayList<>(packages.values()), classes
+    );
+  }
+
+  /**
+   * @return The base url of the source
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * @return The creation time in epoch milliseconds
+   */
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  /**
+   * @return All packages of the source
+   */
+  public List<PackageEntry> getPackages() {
+    return packages;
+  }
+
+  /**
+   * @return All classes of the source
+   */
+  public List<ClassEntry> getClasses() {
+    return classes;
+  }
+
+  /**
+   * Finds the classes whose fully qualified name ends in the given name.
+   *
+   * @param name The name of the class
+   * @param amount The maximum amount of classes to return
+   * @return The matching classes, in snapshot order
+   */
+  public List<ClassEntry> findEndingIn(String name, int amount) {
+    List<ClassEntry> result = new ArrayList<>();
+    for (ClassEntry entry : classes) {
+      if (result.size() >= amount) {
+        break;
+      }
+      if (entry.getQualifiedName().endsWith(name)) {
+        result.add(entry);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * A package in a snapshot.
+   */
+  public static class PackageEntry {
+
+    private final String name;
+    private final String url;
+
+    PackageEntry(String name, String url) {
+      this.name = name;
+      this.url = url;
+    }
+
+    /**
+     * @return The name of the package
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return The url of the package
+     */
+    public String getUrl() {
+      return url;
+    }
+  }
+
+  /**
+   * A class in a snapshot.
+   */
+  public static class ClassEntry {
+
+    private final PackageEntry javadocPackage;
+    private final String name;
+    private final String url;
+
+    ClassEntry(PackageEntry javadocPackage, String name, String url) {
+      this.javadocPackage = javadocPackage;
+      this.name = name;
+      this.url = url;
+    }
+
+    /**
+     * @return The package of the class
+     */
+    public PackageEntry getPackage() {
+      return javadocPackage;
+    }
+
+    /**
+     * @return The simple name of the class
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return The fully qualified name of the class
+     */
+    public String getQualifiedName() {
+      return StringUtil.getQualifiedName(javadocPackage.getName(), name);
+    }
+
+    /**
+     * @return The url of the class
+     */
+    public String getUrl() {
+      return url;
+    }
+  }
+}
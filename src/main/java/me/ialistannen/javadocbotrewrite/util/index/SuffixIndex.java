@@ -0,0 +1,142 @@
+package me.ialistannen.javadocbotrewrite.util.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * An immutable index answering "which names end in X" queries.
+ *
+ * <p>All names are stored reversed in one sorted array. Every name ending in a given suffix
+ * therefore sits in a contiguous run starting with the reversed suffix, which is found with a
+ * binary search and then walked.
+ *
+ * @param <T> The type of the indexed values
+ */
+public class SuffixIndex<T> {
+
+  private static final SuffixIndex<?> EMPTY = new SuffixIndex<>(new String[0], new Object[0]);
+
+  private final String[] reversedNames;
+  private final Object[] values;
+
+  private SuffixIndex(String[] reversedNames, Object[] values) {
+    this.reversedNames = reversedNames;
+    this.values = values;
+  }
+
+  /**
+   * Builds a new index. Duplicate values are only indexed once.
+   *
+   * @param values The values to index
+   * @param nameFunction Extracts the name to match suffixes against
+   * @param <T> The type of the values
+   * @return The created index
+   */
+  public static <T> SuffixIndex<T> build(Collection<T> values, Function<T, String> nameFunction) {
+    Set<T> uniqueValues = new LinkedHashSet<>(values);
+
+    List<Entry<T>> entries = new ArrayList<>(uniqueValues.size());
+    for (T value : uniqueValues) {
+      entries.add(new Entry<>(reverse(nameFunction.apply(value)), value));
+    }
+    entries.sort(Comparator.comparing(entry -> entry.reversedName));
+
+    String[] reversedNames = new String[entries.size()];
+    Object[] sortedValues = new Object[entries.size()];
+    for (int i = 0; i < entries.size(); i++) {
+      reversedNames[i] = entries.get(i).reversedName;
+      sortedValues[i] = entries.get(i).value;
+    }
+
+    return new SuffixIndex<>(reversedNames, sortedValues);
+  }
+
+  /**
+   * @param <T> The type of the values
+   * @return An empty index
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> SuffixIndex<T> empty() {
+    return (SuffixIndex<T>) EMPTY;
+  }
+
+  /**
+   * Returns all values whose name ends in the given suffix.
+   *
+   * @param suffix The suffix
+   * @return All values whose name ends in the suffix. Unmodifiable.
+   */
+  @SuppressWarnings("unchecked")
+  public List<T> getEndingIn(String suffix) {
+    String reversedSuffix = reverse(suffix);
+
+    int start = lowerBound(reversedSuffix);
+    if (start >= reversedNames.length || !reversedNames[start].startsWith(reversedSuffix)) {
+      return Collections.emptyList();
+    }
+
+    List<T> result = new ArrayList<>();
+    for (int i = start; i < reversedNames.length; i++) {
+      if (!reversedNames[i].startsWith(reversedSuffix)) {
+        break;
+      }
+      result.add((T) values[i]);
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * @return All indexed values
+   */
+  @SuppressWarnings("unchecked")
+  public List<T> getAll() {
+    return (List<T>) Collections.unmodifiableList(Arrays.asList(values));
+  }
+
+  /**
+   * @return The amount of indexed values
+   */
+  public int size() {
+    return values.length;
+  }
+
+  /**
+   * @param key The key to search for
+   * @return The index of the first name that is greater than or equal to the key
+   */
+  private int lowerBound(String key) {
+    int low = 0;
+    int high = reversedNames.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (reversedNames[middle].compareTo(key) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static String reverse(String input) {
+    return new StringBuilder(input).reverse().toString();
+  }
+
+  private static class Entry<T> {
+
+    private final String reversedName;
+    private final T value;
+
+    private Entry(String reversedName, T value) {
+      this.reversedName = reversedName;
+      this.value = value;
+    }
+  }
+}
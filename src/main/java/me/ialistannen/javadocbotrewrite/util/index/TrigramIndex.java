@@ -0,0 +1,181 @@
+package me.ialistannen.javadocbotrewrite.util.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An immutable index finding names similar to a (possibly misspelled) query.
+ *
+ * <p>Every name is split into its trigrams, the three character substrings of the lower cased
+ * name padded with a boundary marker. Candidates share at least one trigram with the query and
+ * are ranked by the Dice coefficient of both trigram sets.
+ */
+public class TrigramIndex {
+
+  private static final TrigramIndex EMPTY = new TrigramIndex(
+      new String[0], new int[0], Collections.emptyMap()
+  );
+  private static final char BOUNDARY = '\u0000';
+
+  private final String[] names;
+  private final int[] trigramCounts;
+  private final Map<Long, int[]> postings;
+
+  private TrigramIndex(String[] names, int[] trigramCounts, Map<Long, int[]> postings) {
+    this.names = names;
+    this.trigramCounts = trigramCounts;
+    this.postings = postings;
+  }
+
+  /**
+   * Builds a new index. Names differing only in case are indexed once.
+   *
+   * @param names The names to index
+   * @return The created index
+   */
+  public static TrigramIndex build(Collection<String> names) {
+    Map<String, String> uniqueNames = new LinkedHashMap<>();
+    for (String name : names) {
+      uniqueNames.putIfAbsent(name.toLowerCase(Locale.ROOT), name);
+    }
+
+    String[] indexedNames = new String[uniqueNames.size()];
+    int[] trigramCounts = new int[uniqueNames.size()];
+    Map<Long, List<Integer>> postingLists = new HashMap<>();
+
+    int id = 0;
+    for (Map.Entry<String, String> entry : uniqueNames.entrySet()) {
+      long[] trigrams = trigrams(entry.getKey());
+      indexedNames[id] = entry.getValue();
+      trigramCounts[id] = trigrams.length;
+
+      for (long trigram : trigrams) {
+        postingLists.computeIfAbsent(trigram, key -> new ArrayList<>()).add(id);
+      }
+      id++;
+    }
+
+    Map<Long, int[]> postings = new HashMap<>(postingLists.size() * 2);
+    for (Map.Entry<Long, List<Integer>> entry : postingLists.entrySet()) {
+      postings.put(
+          entry.getKey(),
+          entry.getValue().stream().mapToInt(Integer::intValue).toArray()
+      );
+    }
+
+    return new TrigramIndex(indexedNames, trigramCounts, postings);
+  }
+
+  /**
+   * @return An empty index
+   */
+  public static TrigramIndex empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Finds the names most similar to the query.
+   *
+   * <p>If the time budget runs out, the best names found in the posting lists scanned so far are
+   * returned.
+   *
+   * @param query The query
+   * @param amount The maximum amount of names to return
+   * @param budgetNanos The maximum time to spend, in nanoseconds
+   * @return The most similar names, best first
+   */
+  public List<String> findSimilar(String query, int amount, long budgetNanos) {
+    long deadline = System.nanoTime() + budgetNanos;
+    long[] queryTrigrams = trigrams(query.toLowerCase(Locale.ROOT));
+
+    int[] commonTrigrams = new int[names.length];
+    int[] touched = new int[names.length];
+    int touchedCount = 0;
+
+    for (long trigram : queryTrigrams) {
+      if (System.nanoTime() > deadline) {
+        break;
+      }
+      int[] posting = postings.get(trigram);
+      if (posting == null) {
+        continue;
+      }
+      for (int id : posting) {
+        if (commonTrigrams[id]++ == 0) {
+          touched[touchedCount++] = id;
+        }
+      }
+    }
+
+    PriorityQueue<Candidate> best = new PriorityQueue<>(amount + 1);
+    for (int i = 0; i < touchedCount; i++) {
+      int id = touched[i];
+      double score = 2.0 * commonTrigrams[id] / (queryTrigrams.length + trigramCounts[id]);
+
+      best.add(new Candidate(id, score));
+      if (best.size() > amount) {
+        best.poll();
+      }
+    }
+
+    List<String> result = new ArrayList<>(best.size());
+    while (!best.isEmpty()) {
+      result.add(names[best.poll().id]);
+    }
+    Collections.reverse(result);
+    return result;
+  }
+
+  /**
+   * @return The amount of indexed names
+   */
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * Computes the distinct trigrams of a name, each packed into a long.
+   *
+   * @param name The name
+   * @return The distinct trigrams
+   */
+  private static long[] trigrams(String name) {
+    String padded = BOUNDARY + name + BOUNDARY;
+    if (padded.length() < 3) {
+      return new long[0];
+    }
+
+    long[] trigrams = new long[padded.length() - 2];
+    for (int i = 0; i < trigrams.length; i++) {
+      trigrams[i] = ((long) padded.charAt(i) << 32)
+          | ((long) padded.charAt(i + 1) << 16)
+          | padded.charAt(i + 2);
+    }
+
+    return Arrays.stream(trigrams).distinct().toArray();
+  }
+
+  private static class Candidate implements Comparable<Candidate> {
+
+    private final int id;
+    private final double score;
+
+    private Candidate(int id, double score) {
+      this.id = id;
+      this.score = score;
+    }
+
+    @Override
+    public int compareTo(Candidate other) {
+      return Double.compare(score, other.score);
+    }
+  }
+}